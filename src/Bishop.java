@@ -8,7 +8,7 @@ public class Bishop extends Piece implements DiagonalMovable {
 		Position pos = g.getPosition();
 //		System.out.println(pos);
 //		System.out.println(((Bishop) pos.getPieceAt('e', 5)).getPossibleMoves(pos));
-		List<Piece> attacking = Bishop.findAttacking(new Square('f', 6), pos);
+		List<Piece> attacking = Bishop.findAttacking(Square.of('f', 6), pos);
 		System.out.print("Attacking f6: ");
 		for(Piece p : attacking) {
 			System.out.print(p.getCurrentSquare() + " ");
@@ -25,10 +25,6 @@ public class Bishop extends Piece implements DiagonalMovable {
 			throw new PieceColorException();
 	}
 	
-	private Bishop(String startSquare) {
-		super(startSquare, 0);
-	}
-	
 	@Override
 	public Piece makeCopy() {
 		return new Bishop(getCurrentFile(), getCurrentRank(), getColor());
@@ -64,8 +60,7 @@ public class Bishop extends Piece implements DiagonalMovable {
 	 */
 	@Override
 	public List<Move> getPossibleMoves(Position pos) {
-		List<Move> possible = DiagonalMovable.findPossibleMoves(pos, this);
-		return possible;
+		return MoveGenerator.getLegalMoves(pos, this);
 	}
 	
 	/**
@@ -102,98 +97,18 @@ public class Bishop extends Piece implements DiagonalMovable {
 	 * @return All possible rooks of the correct color that can go to that square.
 	 */
 	public static LinkedList<Piece> findAttacking(Square sq, Position pos, boolean isQueen) {
-		LinkedList<Piece> possible = new LinkedList<Piece>();
-		// Creates a dummy piece
-		Bishop dummy = new Bishop(sq.toString());
-		int dummyFile = dummy.getCurrentX();
-		int dummyRank = dummy.getCurrentY();
-		int dummyColor = pos.getColorAt(sq);
 		int movingColor = pos.getSideToMove();
-		if(dummyColor == movingColor)
-			return possible;
-		// Checks squares to the east (increasing file)
-		int rankUp = dummyRank + 1;
-		int rankDown = dummyRank - 1;
-		boolean checkingUp = true; // If an obstruction has not been found yet
-		boolean checkingDown = true;
-		for(int file = dummyFile + 1; file < pos.getWidth(); file++) {
-			// Checks squares to the northeast (increasing rank)
-			if(rankUp > 8);
-			else {
-				Square testing = new Square(file, rankUp);
-				int testColor = pos.getOccupiedAt(testing);
-				if(pos.getOccupiedAt(testing) == LABEL)
-					checkingUp = false;
-				else if(!pos.isOccupiedAt(testing));
-				else if(checkingUp && testColor == movingColor
-						&& (isQueen ? (pos.getPieceAt(testing) instanceof Queen)
-						: (pos.getPieceAt(testing) instanceof Bishop)))
-					possible.add(pos.getPieceAt(testing));
-				else
-					checkingUp = false;
-				rankUp++;
-			}
-			// Checks squares to the southeast (decreasing rank)
-			if(rankDown < 1);
-			else {
-				Square testing = new Square(file, rankDown);
-				int testColor = pos.getOccupiedAt(testing);
-				if(pos.getOccupiedAt(testing) == LABEL)
-					checkingDown = false;
-				else if(!pos.isOccupiedAt(testing));
-				else if(checkingDown && testColor == movingColor
-						&& (isQueen ? (pos.getPieceAt(testing) instanceof Queen)
-						: (pos.getPieceAt(testing) instanceof Bishop)))
-					possible.add(pos.getPieceAt(testing));
-				else
-					checkingDown = false;
-				rankDown--;
-			}
-			if(!checkingUp && !checkingDown)
-				break;
-		}
-		// Checks squares to the west (decreasing file)
-		rankUp = dummyRank + 1;
-		rankDown = dummyRank - 1;
-		checkingUp = true;
-		checkingDown = true;
-		for(int file = dummyFile - 1; file > 0; file--) {
-			// Checks squares to the northwest (increasing rank)
-			if(rankUp > 8);
-			else {
-				Square testing = new Square(file, rankUp);
-				int testColor = pos.getOccupiedAt(testing);
-				if(pos.getOccupiedAt(testing) == LABEL)
-					checkingUp = false;
-				else if(!pos.isOccupiedAt(testing));
-				else if(checkingUp && testColor == movingColor
-						&& (isQueen ? (pos.getPieceAt(testing) instanceof Queen)
-						: (pos.getPieceAt(testing) instanceof Bishop)))
-					possible.add(pos.getPieceAt(testing));
-				else
-					checkingUp = false;
-				rankUp++;
-			}
-			// Checks squares to the southwest (decreasing rank)
-			if(rankDown < 1);
-			else {
-				Square testing = new Square(file, rankDown);
-				int testColor = pos.getOccupiedAt(testing);
-				if(pos.getOccupiedAt(testing) == LABEL)
-					checkingDown = false;
-				else if(!pos.isOccupiedAt(testing));
-				else if(checkingDown && testColor == movingColor
-						&& (isQueen ? (pos.getPieceAt(testing) instanceof Queen)
-						: (pos.getPieceAt(testing) instanceof Bishop)))
-					possible.add(pos.getPieceAt(testing));
-				else
-					checkingDown = false;
-				rankDown--;
-			}
-			if(!checkingUp && !checkingDown)
-				break;
-		}
-		return possible;
+		// This means that the piece on this square is the same color
+		// as the side to move, meaning the capture shouldn't be possible
+		if(movingColor == BLANK || pos.getColorAt(sq) == movingColor)
+			return new LinkedList<Piece>();
+		int type;
+		if(isQueen)
+			type = (movingColor == WHITE) ? WHITE_QUEEN : BLACK_QUEEN;
+		else
+			type = (movingColor == WHITE) ? WHITE_BISHOP : BLACK_BISHOP;
+		return pos.getPiecesOn(Bitboard.bishopAttacks(Bitboard.index(sq), pos.getOccupied())
+				& pos.getBitboard(type));
 	}
 	
 }
@@ -0,0 +1,379 @@
+/**
+ * Static helpers for working with bitboards, 64-bit longs in which each bit stands
+ * for one square of the board.
+ * Bit 0 is a1, bit 7 is h1, bit 56 is a8, and bit 63 is h8, so the index of a square
+ * is (y - 1) * 8 + (x - 1) in terms of the coordinates used by the Square class.
+ */
+public final class Bitboard {
+
+//	****************** MASKS ******************
+
+	final public static long EMPTY = 0L;
+	final public static long FULL = ~0L;
+	final public static long FILE_A = 0x0101010101010101L;
+	final public static long FILE_B = FILE_A << 1;
+	final public static long FILE_G = FILE_A << 6;
+	final public static long FILE_H = FILE_A << 7;
+	final public static long RANK_1 = 0xFFL;
+	final public static long RANK_2 = RANK_1 << 8;
+	final public static long RANK_3 = RANK_1 << 16;
+	final public static long RANK_4 = RANK_1 << 24;
+	final public static long RANK_5 = RANK_1 << 32;
+	final public static long RANK_6 = RANK_1 << 40;
+	final public static long RANK_7 = RANK_1 << 48;
+	final public static long RANK_8 = RANK_1 << 56;
+
+//	****************** LEAPER TABLES ******************
+
+	/**
+	 * The squares a knight attacks from each square, indexed by bit index.
+	 */
+	private static final long[] KNIGHT_ATTACKS = new long[64];
+	/**
+	 * The squares a king attacks from each square, indexed by bit index.
+	 */
+	private static final long[] KING_ATTACKS = new long[64];
+	/**
+	 * The squares a white pawn attacks from each square, indexed by bit index.
+	 */
+	private static final long[] WHITE_PAWN_ATTACKS = new long[64];
+	/**
+	 * The squares a black pawn attacks from each square, indexed by bit index.
+	 */
+	private static final long[] BLACK_PAWN_ATTACKS = new long[64];
+
+//	****************** LINE TABLES ******************
+
+	/**
+	 * The squares strictly between two squares on the same rank, file or diagonal,
+	 * indexed by the bit indices of both squares. Empty if they aren't lined up.
+	 */
+	private static final long[][] BETWEEN = new long[64][64];
+	/**
+	 * The whole line across the board through two squares on the same rank, file
+	 * or diagonal, both squares included. Empty if they aren't lined up.
+	 */
+	private static final long[][] LINE = new long[64][64];
+
+	/**
+	 * Fills in the leaper and line tables.
+	 */
+	static {
+		for(int sq = 0; sq < 64; sq++) {
+			long b = 1L << sq;
+			KNIGHT_ATTACKS[sq] = knightAttacks(b);
+			KING_ATTACKS[sq] = kingAttacks(b);
+			WHITE_PAWN_ATTACKS[sq] = pawnAttacks(b, Piece.WHITE);
+			BLACK_PAWN_ATTACKS[sq] = pawnAttacks(b, Piece.BLACK);
+			for(int dx = -1; dx <= 1; dx++) {
+				for(int dy = -1; dy <= 1; dy++) {
+					if(dx == 0 && dy == 0)
+						continue;
+					long line = slide(sq, EMPTY, dx, dy) | slide(sq, EMPTY, -dx, -dy) | b;
+					long between = EMPTY;
+					int x = (sq & 7) + dx;
+					int y = (sq >>> 3) + dy;
+					while(x >= 0 && x < 8 && y >= 0 && y < 8) {
+						int other = (y << 3) + x;
+						BETWEEN[sq][other] = between;
+						LINE[sq][other] = line;
+						between |= 1L << other;
+						x += dx;
+						y += dy;
+					}
+				}
+			}
+		}
+	}
+
+	private Bitboard() {
+
+	}
+
+//	****************** SQUARE INDEXING ******************
+
+	/**
+	 * Converts a pair of board coordinates into a bit index.
+	 *
+	 * @param x The file of the square, 1-8.
+	 * @param y The rank of the square, 1-8.
+	 * @return The bit index of the square, 0-63.
+	 */
+	public static int index(int x, int y) {
+		return ((y - 1) << 3) + (x - 1);
+	}
+
+	/**
+	 * Converts a square into a bit index.
+	 *
+	 * @param sq The square.
+	 * @return The bit index of the square, 0-63.
+	 */
+	public static int index(Square sq) {
+		return index(sq.getX(), sq.getY());
+	}
+
+	/**
+	 * Returns the file of a bit index, in the 1-8 coordinates used by the Square class.
+	 *
+	 * @param index The bit index.
+	 * @return The x-coordinate of the square.
+	 */
+	public static int getX(int index) {
+		return (index & 7) + 1;
+	}
+
+	/**
+	 * Returns the rank of a bit index, in the 1-8 coordinates used by the Square class.
+	 *
+	 * @param index The bit index.
+	 * @return The y-coordinate of the square.
+	 */
+	public static int getY(int index) {
+		return (index >>> 3) + 1;
+	}
+
+	/**
+	 * Returns a bitboard with only the given square set.
+	 *
+	 * @param x The file of the square, 1-8.
+	 * @param y The rank of the square, 1-8.
+	 * @return A bitboard with one bit set.
+	 */
+	public static long bit(int x, int y) {
+		return 1L << index(x, y);
+	}
+
+	/**
+	 * Checks whether a coordinate pair lies on the 8x8 board.
+	 *
+	 * @param x The file of the square.
+	 * @param y The rank of the square.
+	 * @return True if and only if both coordinates are between 1 and 8.
+	 */
+	public static boolean isOnBoard(int x, int y) {
+		return x >= 1 && x <= 8 && y >= 1 && y <= 8;
+	}
+
+	/**
+	 * Returns the index of the lowest set bit.
+	 *
+	 * @param bb A non-empty bitboard.
+	 * @return The index of the lowest set bit.
+	 */
+	public static int first(long bb) {
+		return Long.numberOfTrailingZeros(bb);
+	}
+
+	/**
+	 * Counts the number of set bits.
+	 *
+	 * @param bb A bitboard.
+	 * @return The number of squares in the set.
+	 */
+	public static int count(long bb) {
+		return Long.bitCount(bb);
+	}
+
+//	****************** ATTACKS ******************
+
+	/**
+	 * Finds every square attacked by a set of knights.
+	 *
+	 * @param knights The squares the knights are on.
+	 * @return The squares the knights attack.
+	 */
+	public static long knightAttacks(long knights) {
+		return ((knights << 17) & ~FILE_A)
+				| ((knights << 15) & ~FILE_H)
+				| ((knights << 10) & ~(FILE_A | FILE_B))
+				| ((knights << 6) & ~(FILE_G | FILE_H))
+				| ((knights >>> 17) & ~FILE_H)
+				| ((knights >>> 15) & ~FILE_A)
+				| ((knights >>> 10) & ~(FILE_G | FILE_H))
+				| ((knights >>> 6) & ~(FILE_A | FILE_B));
+	}
+
+	/**
+	 * Finds every square attacked by a set of kings.
+	 *
+	 * @param kings The squares the kings are on.
+	 * @return The squares the kings attack.
+	 */
+	public static long kingAttacks(long kings) {
+		long attacks = ((kings << 1) & ~FILE_A) | ((kings >>> 1) & ~FILE_H);
+		long row = kings | attacks;
+		return attacks | (row << 8) | (row >>> 8);
+	}
+
+	/**
+	 * Finds every square attacked by a set of pawns.
+	 *
+	 * @param pawns The squares the pawns are on.
+	 * @param color The color of the pawns, as defined in the Piece class.
+	 * @return The squares the pawns attack.
+	 */
+	public static long pawnAttacks(long pawns, int color) {
+		if(color == Piece.WHITE)
+			return ((pawns << 9) & ~FILE_A) | ((pawns << 7) & ~FILE_H);
+		else
+			return ((pawns >>> 7) & ~FILE_A) | ((pawns >>> 9) & ~FILE_H);
+	}
+
+	/**
+	 * Looks up the squares a knight on the given square attacks.
+	 *
+	 * @param index The bit index of the knight.
+	 * @return The squares the knight attacks.
+	 */
+	public static long knightAttacksFrom(int index) {
+		return KNIGHT_ATTACKS[index];
+	}
+
+	/**
+	 * Looks up the squares a king on the given square attacks.
+	 *
+	 * @param index The bit index of the king.
+	 * @return The squares the king attacks.
+	 */
+	public static long kingAttacksFrom(int index) {
+		return KING_ATTACKS[index];
+	}
+
+	/**
+	 * Looks up the squares a pawn on the given square attacks.
+	 *
+	 * @param index The bit index of the pawn.
+	 * @param color The color of the pawn, as defined in the Piece class.
+	 * @return The squares the pawn attacks.
+	 */
+	public static long pawnAttacksFrom(int index, int color) {
+		return (color == Piece.WHITE) ? WHITE_PAWN_ATTACKS[index] : BLACK_PAWN_ATTACKS[index];
+	}
+
+	/**
+	 * Looks up the squares strictly between two squares.
+	 *
+	 * @param a The bit index of one square.
+	 * @param b The bit index of the other square.
+	 * @return The squares between them, or an empty set if they aren't on a common line.
+	 */
+	public static long between(int a, int b) {
+		return BETWEEN[a][b];
+	}
+
+	/**
+	 * Looks up the line running across the whole board through two squares.
+	 *
+	 * @param a The bit index of one square.
+	 * @param b The bit index of the other square.
+	 * @return The line through both, or an empty set if they aren't on a common line.
+	 */
+	public static long line(int a, int b) {
+		return LINE[a][b];
+	}
+
+	/**
+	 * Finds every square a rook on the given square attacks. The first blocker in
+	 * each direction is included, whatever its color.
+	 *
+	 * @param index The bit index of the rook.
+	 * @param occupied Every occupied square on the board.
+	 * @return The squares the rook attacks.
+	 */
+	public static long rookAttacks(int index, long occupied) {
+		return Magic.rookAttacks(index, occupied);
+	}
+
+	/**
+	 * Finds every square a bishop on the given square attacks. The first blocker in
+	 * each direction is included, whatever its color.
+	 *
+	 * @param index The bit index of the bishop.
+	 * @param occupied Every occupied square on the board.
+	 * @return The squares the bishop attacks.
+	 */
+	public static long bishopAttacks(int index, long occupied) {
+		return Magic.bishopAttacks(index, occupied);
+	}
+
+	/**
+	 * Finds every square a queen on the given square attacks.
+	 *
+	 * @param index The bit index of the queen.
+	 * @param occupied Every occupied square on the board.
+	 * @return The squares the queen attacks.
+	 */
+	public static long queenAttacks(int index, long occupied) {
+		return Magic.queenAttacks(index, occupied);
+	}
+
+	/**
+	 * Finds the squares a rook attacks by walking each ray square by square.
+	 * This is slow, and should only be used to build the magic tables.
+	 *
+	 * @param index The bit index of the rook.
+	 * @param occupied Every occupied square on the board.
+	 * @return The squares the rook attacks.
+	 */
+	public static long rookRayAttacks(int index, long occupied) {
+		return slide(index, occupied, 1, 0) | slide(index, occupied, -1, 0)
+				| slide(index, occupied, 0, 1) | slide(index, occupied, 0, -1);
+	}
+
+	/**
+	 * Finds the squares a bishop attacks by walking each ray square by square.
+	 * This is slow, and should only be used to build the magic tables.
+	 *
+	 * @param index The bit index of the bishop.
+	 * @param occupied Every occupied square on the board.
+	 * @return The squares the bishop attacks.
+	 */
+	public static long bishopRayAttacks(int index, long occupied) {
+		return slide(index, occupied, 1, 1) | slide(index, occupied, 1, -1)
+				| slide(index, occupied, -1, 1) | slide(index, occupied, -1, -1);
+	}
+
+	/**
+	 * Walks along one ray until it runs off the board or hits an occupied square.
+	 *
+	 * @param index The starting bit index, which is not included.
+	 * @param occupied Every occupied square on the board.
+	 * @param dx The step in the file direction.
+	 * @param dy The step in the rank direction.
+	 * @return The squares along the ray, up to and including the first blocker.
+	 */
+	private static long slide(int index, long occupied, int dx, int dy) {
+		long attacks = EMPTY;
+		int x = (index & 7) + dx;
+		int y = (index >>> 3) + dy;
+		while(x >= 0 && x < 8 && y >= 0 && y < 8) {
+			long b = 1L << ((y << 3) + x);
+			attacks |= b;
+			if((occupied & b) != 0)
+				break;
+			x += dx;
+			y += dy;
+		}
+		return attacks;
+	}
+
+	/**
+	 * Returns a string of the bitboard, with rank 8 on top, for debugging purposes.
+	 *
+	 * @param bb The bitboard.
+	 * @return Eight lines of ones and dots.
+	 */
+	public static String toString(long bb) {
+		String board = "";
+		for(int y = 8; y >= 1; y--) {
+			for(int x = 1; x <= 8; x++) {
+				board += ((bb & bit(x, y)) != 0) ? "1" : ".";
+			}
+			if(y != 1)
+				board += "\n";
+		}
+		return board;
+	}
+
+}
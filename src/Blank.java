@@ -1,33 +1,45 @@
 import java.util.List;
 
+/**
+ * An empty square. Blanks have no state of their own, so one shared instance
+ * stands for every empty square on every board.
+ */
 public class Blank extends Piece {
-	
-	public Blank(int file, int rank) {
-		super(file, rank);
-	}
-	
-	public Blank(char file, int rank) {
-		this(Square.fileToXMap.get(file), rank);
-	}
-	
-	public Blank(String newLocation) {
-		super(newLocation.charAt(0), Character.getNumericValue(newLocation.charAt(1)));
-		if(!newLocation.matches("[a-h][1-8]"))
-			throw new PieceTypeException("Blank cannot be placed at that square!");
-		if(this.getColor() != BLANK)
-			throw new PieceTypeException("Blanks must be initialized with a color value of 0!");
+
+	/**
+	 * The blank used for every empty square.
+	 */
+	final public static Blank EMPTY = new Blank();
+
+	private Blank() {
+		super();
 	}
-	
+
 	@Override
 	public boolean isBlank() {
 		return true;
 	}
-	
+
+	/**
+	 * Blanks are shared, so the blank is returned rather than copied.
+	 *
+	 * @return The shared blank.
+	 */
 	@Override
 	public Piece makeCopy() {
-		return new Blank(getCurrentFile(), getCurrentRank());
+		return this;
 	}
-	
+
+	/**
+	 * Does nothing, since the shared blank isn't on any one square.
+	 *
+	 * @param sq The square, which is ignored.
+	 */
+	@Override
+	public void setCurrentSquare(Square sq) {
+
+	}
+
 	@Override
 	public int getValue() {
 		return 0;
@@ -37,7 +49,7 @@ public class Blank extends Piece {
 	public boolean checkLegalMove(Position pos) {
 		return false;
 	}
-	
+
 	@Override
 	public List<Move> getPossibleMoves(Position pos) {
 		return null;
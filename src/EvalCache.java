@@ -0,0 +1,111 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A direct-mapped table of evaluations, indexed by Zobrist key, so that a position
+ * evaluated once, in an earlier iteration or by another thread, isn't evaluated again.
+ * Each entry is two longs, the key XORed with the data and the data itself, as in the
+ * TranspositionTable, so several threads can share the table without locking.
+ * A newer evaluation always replaces the old one in its slot.
+ * The table counts its probes and hits, so its size can be tuned by its hit rate.
+ */
+public class EvalCache {
+
+	/**
+	 * The entry for a key that isn't in the table.
+	 */
+	final public static int MISS = Integer.MIN_VALUE;
+
+	private static final int SCORE_OFFSET = 1 << 15;
+
+	/**
+	 * The entries, where entry i takes up the two longs starting at 2i.
+	 */
+	private long[] entries;
+	private int mask;
+	private final LongAdder probes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * Makes a table with a number of entries, rounded down to a power of two.
+	 *
+	 * @param size The number of entries.
+	 */
+	public EvalCache(int size) {
+		resize(size);
+	}
+
+	/**
+	 * Throws away every entry and reallocates the table at a new size.
+	 *
+	 * @param size The number of entries, rounded down to a power of two.
+	 */
+	public void resize(int size) {
+		int entryCount = Integer.highestOneBit(Math.max(1, size));
+		entries = new long[entryCount * 2];
+		mask = entryCount - 1;
+	}
+
+	/**
+	 * Empties the table, such as when the evaluation changes. The counters are kept.
+	 */
+	public void clear() {
+		Arrays.fill(entries, 0);
+	}
+
+	/**
+	 * Looks up the evaluation of a position.
+	 *
+	 * @param key The Zobrist key of the position.
+	 * @return The stored score, or MISS if the position isn't in the table.
+	 */
+	public int probe(long key) {
+		probes.increment();
+		int i = ((int) key & mask) * 2;
+		long data = entries[i + 1];
+		if((entries[i] ^ data) != key || data == 0)
+			return MISS;
+		hits.increment();
+		return (int) data - SCORE_OFFSET;
+	}
+
+	/**
+	 * Stores the evaluation of a position.
+	 *
+	 * @param key The Zobrist key of the position.
+	 * @param score The score, which must fit in 16 bits.
+	 */
+	public void store(long key, int score) {
+		int i = ((int) key & mask) * 2;
+		long data = (score + SCORE_OFFSET) & 0xFFFF;
+		entries[i] = key ^ data;
+		entries[i + 1] = data;
+	}
+
+	public long getProbes() {
+		return probes.sum();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the share of probes that found their position.
+	 *
+	 * @return The hits out of every thousand probes, or 0 before the first probe.
+	 */
+	public int hitRate() {
+		long p = probes.sum();
+		return (p == 0) ? 0 : (int) (hits.sum() * 1000 / p);
+	}
+
+	/**
+	 * Sets the probe and hit counters back to zero.
+	 */
+	public void resetCounters() {
+		probes.reset();
+		hits.reset();
+	}
+
+}
@@ -0,0 +1,622 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A tapered evaluation made of material and piece-square tables.
+ * Every piece has a middlegame and an endgame value that depend on its square, and
+ * the two totals are blended by the game phase, which falls from 24 to 0 as knights,
+ * bishops, rooks and queens come off the board.
+ * Position keeps the middlegame and endgame totals and the phase up to date as pieces
+ * are added and removed, so that part of the score costs nothing to work out.
+ * On top of that come the pawn structure, which the search looks up in a PawnTable
+ * since it rarely changes from one position to the next, and the pawn shields of the
+ * kings and free passed pawns, which depend on the other pieces as well.
+ * The tables below are the default weights, written from white's side with a8 first,
+ * the way a board is printed. Every weight can be replaced, such as with the weights
+ * written by the Tuner.
+ */
+public final class Evaluation {
+
+	/**
+	 * The phase of the starting position, and the most the phase is counted as.
+	 */
+	final public static int MAX_PHASE = 24;
+
+	private static final int[] PAWN_MG = {
+			 0,   0,   0,   0,   0,   0,   0,   0,
+			50,  50,  50,  50,  50,  50,  50,  50,
+			10,  10,  20,  30,  30,  20,  10,  10,
+			 5,   5,  10,  25,  25,  10,   5,   5,
+			 0,   0,   0,  20,  20,   0,   0,   0,
+			 5,  -5, -10,   0,   0, -10,  -5,   5,
+			 5,  10,  10, -20, -20,  10,  10,   5,
+			 0,   0,   0,   0,   0,   0,   0,   0};
+
+	private static final int[] PAWN_EG = {
+			 0,   0,   0,   0,   0,   0,   0,   0,
+			80,  80,  80,  80,  80,  80,  80,  80,
+			50,  50,  50,  50,  50,  50,  50,  50,
+			30,  30,  30,  30,  30,  30,  30,  30,
+			15,  15,  15,  15,  15,  15,  15,  15,
+			 5,   5,   5,   5,   5,   5,   5,   5,
+			 0,   0,   0,   0,   0,   0,   0,   0,
+			 0,   0,   0,   0,   0,   0,   0,   0};
+
+	private static final int[] KNIGHT = {
+			-50, -40, -30, -30, -30, -30, -40, -50,
+			-40, -20,   0,   0,   0,   0, -20, -40,
+			-30,   0,  10,  15,  15,  10,   0, -30,
+			-30,   5,  15,  20,  20,  15,   5, -30,
+			-30,   0,  15,  20,  20,  15,   0, -30,
+			-30,   5,  10,  15,  15,  10,   5, -30,
+			-40, -20,   0,   5,   5,   0, -20, -40,
+			-50, -40, -30, -30, -30, -30, -40, -50};
+
+	private static final int[] BISHOP = {
+			-20, -10, -10, -10, -10, -10, -10, -20,
+			-10,   0,   0,   0,   0,   0,   0, -10,
+			-10,   0,   5,  10,  10,   5,   0, -10,
+			-10,   5,   5,  10,  10,   5,   5, -10,
+			-10,   0,  10,  10,  10,  10,   0, -10,
+			-10,  10,  10,  10,  10,  10,  10, -10,
+			-10,   5,   0,   0,   0,   0,   5, -10,
+			-20, -10, -10, -10, -10, -10, -10, -20};
+
+	private static final int[] ROOK = {
+			 0,   0,   0,   0,   0,   0,   0,   0,
+			 5,  10,  10,  10,  10,  10,  10,   5,
+			-5,   0,   0,   0,   0,   0,   0,  -5,
+			-5,   0,   0,   0,   0,   0,   0,  -5,
+			-5,   0,   0,   0,   0,   0,   0,  -5,
+			-5,   0,   0,   0,   0,   0,   0,  -5,
+			-5,   0,   0,   0,   0,   0,   0,  -5,
+			 0,   0,   0,   5,   5,   0,   0,   0};
+
+	private static final int[] QUEEN = {
+			-20, -10, -10,  -5,  -5, -10, -10, -20,
+			-10,   0,   0,   0,   0,   0,   0, -10,
+			-10,   0,   5,   5,   5,   5,   0, -10,
+			 -5,   0,   5,   5,   5,   5,   0,  -5,
+			  0,   0,   5,   5,   5,   5,   0,  -5,
+			-10,   5,   5,   5,   5,   5,   0, -10,
+			-10,   0,   5,   0,   0,   0,   0, -10,
+			-20, -10, -10,  -5,  -5, -10, -10, -20};
+
+	private static final int[] KING_MG = {
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-30, -40, -40, -50, -50, -40, -40, -30,
+			-20, -30, -30, -40, -40, -30, -30, -20,
+			-10, -20, -20, -20, -20, -20, -20, -10,
+			 20,  20,   0,   0,   0,   0,  20,  20,
+			 20,  30,  10,   0,   0,  10,  30,  20};
+
+	private static final int[] KING_EG = {
+			-50, -40, -30, -20, -20, -30, -40, -50,
+			-30, -20, -10,   0,   0, -10, -20, -30,
+			-30, -10,  20,  30,  30,  20, -10, -30,
+			-30, -10,  30,  40,  40,  30, -10, -30,
+			-30, -10,  30,  40,  40,  30, -10, -30,
+			-30, -10,  20,  30,  30,  20, -10, -30,
+			-30, -30,   0,   0,   0,   0, -30, -30,
+			-50, -30, -30, -30, -30, -30, -30, -50};
+
+	/**
+	 * The terms of the evaluation. Each term has a middlegame and an endgame weight,
+	 * and is counted once for each white piece or pawn it applies to and taken away
+	 * once for each black one. Penalties are terms with negative weights.
+	 * The material and piece-square terms are indexed by kind of piece, in the order
+	 * pawn, knight, bishop, rook, queen, king, and the piece-square terms then by
+	 * square as seen by the piece's own side, a8 first, like the tables above.
+	 * The passed pawn terms are indexed by rank counted from the pawn's own side, from 0.
+	 */
+	final public static int MATERIAL = 0;
+	final public static int PIECE_SQUARE = MATERIAL + 6;
+	final public static int DOUBLED = PIECE_SQUARE + 6 * 64;
+	final public static int ISOLATED = DOUBLED + 1;
+	final public static int BACKWARD = ISOLATED + 1;
+	final public static int PASSED = BACKWARD + 1;
+	/**
+	 * A passed pawn whose next square is empty.
+	 */
+	final public static int FREE_PASSED = PASSED + 8;
+	/**
+	 * A pawn one or two ranks in front of its king, on the king's file or next to it,
+	 * while the king is on its first two ranks.
+	 */
+	final public static int SHIELD_NEAR = FREE_PASSED + 8;
+	final public static int SHIELD_FAR = SHIELD_NEAR + 1;
+	final public static int TERMS = SHIELD_FAR + 1;
+	/**
+	 * The number of terms that make up the pawn structure, from DOUBLED up to FREE_PASSED,
+	 * and so the size of the counts a pawn table keeps for scoring a structure.
+	 */
+	final public static int PAWN_TERMS = FREE_PASSED - DOUBLED;
+
+	private static final String[] KIND_NAMES = {"pawn", "knight", "bishop", "rook", "queen", "king"};
+
+	/**
+	 * The kind of each piece type, as used to index the terms.
+	 */
+	private static final int[] KINDS = new int[Piece.BLACK_KING + 1];
+
+	private static final int[] MG_WEIGHTS = new int[TERMS];
+	private static final int[] EG_WEIGHTS = new int[TERMS];
+
+	/**
+	 * The material and piece-square weights of every piece type on every bit index,
+	 * counted positive for white and negative for black, worked out from the weights.
+	 */
+	private static final int[][] MG = new int[Piece.BLACK_KING + 1][64];
+	private static final int[][] EG = new int[Piece.BLACK_KING + 1][64];
+	private static final int[] PHASE = new int[Piece.BLACK_KING + 1];
+
+	/**
+	 * For each side and square, the squares in front of it on its own file.
+	 */
+	private static final long[][] FRONT_SPAN = new long[2][64];
+	/**
+	 * For each side and square, the squares in front of it on its own and the
+	 * neighbouring files, where an enemy pawn stops a pawn from being passed.
+	 */
+	private static final long[][] PASSED_SPAN = new long[2][64];
+	/**
+	 * For each side and square, the squares on the neighbouring files level with it
+	 * or behind it, where a pawn could come up to defend it.
+	 */
+	private static final long[][] SUPPORT_SPAN = new long[2][64];
+	private static final long[] ADJACENT_FILES = new long[8];
+
+	static {
+		KINDS[Piece.WHITE_PAWN] = KINDS[Piece.BLACK_PAWN] = 0;
+		KINDS[Piece.WHITE_KNIGHT] = KINDS[Piece.BLACK_KNIGHT] = 1;
+		KINDS[Piece.WHITE_BISHOP] = KINDS[Piece.BLACK_BISHOP] = 2;
+		KINDS[Piece.WHITE_ROOK] = KINDS[Piece.BLACK_ROOK] = 3;
+		KINDS[Piece.WHITE_QUEEN] = KINDS[Piece.BLACK_QUEEN] = 4;
+		KINDS[Piece.WHITE_KING] = KINDS[Piece.BLACK_KING] = 5;
+		PHASE[Piece.WHITE_KNIGHT] = PHASE[Piece.BLACK_KNIGHT] = 1;
+		PHASE[Piece.WHITE_BISHOP] = PHASE[Piece.BLACK_BISHOP] = 1;
+		PHASE[Piece.WHITE_ROOK] = PHASE[Piece.BLACK_ROOK] = 2;
+		PHASE[Piece.WHITE_QUEEN] = PHASE[Piece.BLACK_QUEEN] = 4;
+		setDefault(0, 100, 120, PAWN_MG, PAWN_EG);
+		setDefault(1, 320, 300, KNIGHT, KNIGHT);
+		setDefault(2, 330, 320, BISHOP, BISHOP);
+		setDefault(3, 500, 520, ROOK, ROOK);
+		setDefault(4, 900, 920, QUEEN, QUEEN);
+		setDefault(5, 0, 0, KING_MG, KING_EG);
+		setDefault(DOUBLED, -10, -20);
+		setDefault(ISOLATED, -10, -15);
+		setDefault(BACKWARD, -8, -10);
+		int[] passedMg = {0, 5, 10, 15, 25, 40, 60, 0};
+		int[] passedEg = {0, 10, 15, 25, 40, 65, 100, 0};
+		int[] freePassedEg = {0, 0, 0, 5, 10, 20, 35, 0};
+		for(int rank = 0; rank < 8; rank++) {
+			setDefault(PASSED + rank, passedMg[rank], passedEg[rank]);
+			setDefault(FREE_PASSED + rank, 0, freePassedEg[rank]);
+		}
+		setDefault(SHIELD_NEAR, 10, 0);
+		setDefault(SHIELD_FAR, 5, 0);
+		buildTables();
+		for(int file = 0; file < 8; file++) {
+			if(file > 0)
+				ADJACENT_FILES[file] |= Bitboard.FILE_A << (file - 1);
+			if(file < 7)
+				ADJACENT_FILES[file] |= Bitboard.FILE_A << (file + 1);
+		}
+		for(int sq = 0; sq < 64; sq++) {
+			long file = Bitboard.FILE_A << (sq & 7);
+			long adjacent = ADJACENT_FILES[sq & 7];
+			// Everything above the square's rank, and everything below it
+			long above = (sq >= 56) ? 0 : -1L << ((sq | 7) + 1);
+			long below = (sq < 8) ? 0 : -1L >>> (64 - (sq & ~7));
+			FRONT_SPAN[0][sq] = file & above;
+			FRONT_SPAN[1][sq] = file & below;
+			PASSED_SPAN[0][sq] = (file | adjacent) & above;
+			PASSED_SPAN[1][sq] = (file | adjacent) & below;
+			SUPPORT_SPAN[0][sq] = adjacent & ~above;
+			SUPPORT_SPAN[1][sq] = adjacent & ~below;
+		}
+	}
+
+	private Evaluation() {
+
+	}
+
+	private static void setDefault(int kind, int mgValue, int egValue, int[] mgTable, int[] egTable) {
+		setDefault(MATERIAL + kind, mgValue, egValue);
+		for(int sq = 0; sq < 64; sq++) {
+			setDefault(PIECE_SQUARE + kind * 64 + sq, mgTable[sq], egTable[sq]);
+		}
+	}
+
+	private static void setDefault(int term, int mg, int eg) {
+		MG_WEIGHTS[term] = mg;
+		EG_WEIGHTS[term] = eg;
+	}
+
+	/**
+	 * Works out the value of every piece type on every square from the material and
+	 * piece-square weights.
+	 */
+	private static void buildTables() {
+		for(int type = Piece.WHITE_PAWN; type <= Piece.BLACK_KING; type++) {
+			int kind = KINDS[type];
+			boolean white = (type - Piece.WHITE_PAWN) % 2 == 0;
+			for(int sq = 0; sq < 64; sq++) {
+				// The tables start from a8, so a white piece looks up its square flipped,
+				// and a black piece, seen from its own side, looks up its square as it is
+				int term = PIECE_SQUARE + kind * 64 + (white ? sq ^ 56 : sq);
+				int mg = MG_WEIGHTS[MATERIAL + kind] + MG_WEIGHTS[term];
+				int eg = EG_WEIGHTS[MATERIAL + kind] + EG_WEIGHTS[term];
+				MG[type][sq] = white ? mg : -mg;
+				EG[type][sq] = white ? eg : -eg;
+			}
+		}
+	}
+
+	/**
+	 * Returns the name of a term, as used in a weights file.
+	 *
+	 * @param term The index of the term.
+	 * @return A name such as "knight", "knight_e4" or "passed_6".
+	 */
+	public static String getTermName(int term) {
+		if(term < PIECE_SQUARE)
+			return KIND_NAMES[term - MATERIAL];
+		if(term < DOUBLED) {
+			int sq = (term - PIECE_SQUARE) % 64;
+			// The table index counts from a8
+			return KIND_NAMES[(term - PIECE_SQUARE) / 64] + "_" + (char) ('a' + (sq & 7)) + (8 - (sq >>> 3));
+		}
+		if(term == DOUBLED)
+			return "doubled";
+		if(term == ISOLATED)
+			return "isolated";
+		if(term == BACKWARD)
+			return "backward";
+		if(term < FREE_PASSED)
+			return "passed_" + (term - PASSED);
+		if(term < SHIELD_NEAR)
+			return "free_passed_" + (term - FREE_PASSED);
+		if(term == SHIELD_NEAR)
+			return "shield_near";
+		return "shield_far";
+	}
+
+	/**
+	 * Returns a copy of the middlegame weights, indexed by term.
+	 *
+	 * @return The weights in centipawns.
+	 */
+	public static int[] getMiddlegameWeights() {
+		return MG_WEIGHTS.clone();
+	}
+
+	/**
+	 * Returns a copy of the endgame weights, indexed by term.
+	 *
+	 * @return The weights in centipawns.
+	 */
+	public static int[] getEndgameWeights() {
+		return EG_WEIGHTS.clone();
+	}
+
+	/**
+	 * Replaces every weight. Positions keep totals worked out with the weights in use
+	 * when they were set up, so this should only be called before any are made.
+	 *
+	 * @param mg The middlegame weights, indexed by term.
+	 * @param eg The endgame weights, indexed by term.
+	 */
+	public static void setWeights(int[] mg, int[] eg) {
+		System.arraycopy(mg, 0, MG_WEIGHTS, 0, TERMS);
+		System.arraycopy(eg, 0, EG_WEIGHTS, 0, TERMS);
+		buildTables();
+	}
+
+	/**
+	 * Writes weights to a file, one term to a line as its name, middlegame weight
+	 * and endgame weight.
+	 *
+	 * @param path The path of the file.
+	 * @param mg The middlegame weights, indexed by term.
+	 * @param eg The endgame weights, indexed by term.
+	 * @throws IOException If the file can't be written.
+	 */
+	public static void saveWeights(String path, int[] mg, int[] eg) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		for(int term = 0; term < TERMS; term++) {
+			lines.add(getTermName(term) + " " + mg[term] + " " + eg[term]);
+		}
+		Files.write(Paths.get(path), lines);
+	}
+
+	/**
+	 * Reads weights written by saveWeights() and puts them in use, as setWeights() does.
+	 * Terms that the file leaves out keep their weights.
+	 *
+	 * @param path The path of the file.
+	 * @throws IOException If the file can't be read or names a term that doesn't exist.
+	 */
+	public static void loadWeights(String path) throws IOException {
+		Map<String, Integer> terms = new HashMap<String, Integer>();
+		for(int term = 0; term < TERMS; term++) {
+			terms.put(getTermName(term), term);
+		}
+		int[] mg = getMiddlegameWeights();
+		int[] eg = getEndgameWeights();
+		for(String line : Files.readAllLines(Paths.get(path))) {
+			String[] fields = line.trim().split("\\s+");
+			if(fields.length < 3)
+				continue;
+			Integer term = terms.get(fields[0]);
+			if(term == null)
+				throw new IOException("Unknown term: " + fields[0]);
+			try {
+				mg[term] = Integer.parseInt(fields[1]);
+				eg[term] = Integer.parseInt(fields[2]);
+			}
+			catch(NumberFormatException e) {
+				throw new IOException("Bad weight: " + line);
+			}
+		}
+		setWeights(mg, eg);
+	}
+
+	/**
+	 * Returns the middlegame value of a piece on a square.
+	 *
+	 * @param pieceType The type of piece, as defined in the Piece class.
+	 * @param index The bit index of the square.
+	 * @return The value in centipawns, negative for black pieces.
+	 */
+	public static int middlegame(int pieceType, int index) {
+		return MG[pieceType][index];
+	}
+
+	/**
+	 * Returns the endgame value of a piece on a square.
+	 *
+	 * @param pieceType The type of piece, as defined in the Piece class.
+	 * @param index The bit index of the square.
+	 * @return The value in centipawns, negative for black pieces.
+	 */
+	public static int endgame(int pieceType, int index) {
+		return EG[pieceType][index];
+	}
+
+	/**
+	 * Returns how much a piece counts towards the game phase.
+	 *
+	 * @param pieceType The type of piece, as defined in the Piece class.
+	 * @return 1 for minor pieces, 2 for rooks, 4 for queens and 0 otherwise.
+	 */
+	public static int phase(int pieceType) {
+		return PHASE[pieceType];
+	}
+
+	/**
+	 * Scores a position from the point of view of the side to move, working out the
+	 * pawn structure from scratch.
+	 *
+	 * @param pos The position to score.
+	 * @return The score in centipawns.
+	 */
+	public static int evaluate(Position pos) {
+		PawnTable.Entry pawns = new PawnTable.Entry();
+		evaluatePawns(pos, pawns, new int[PAWN_TERMS]);
+		return evaluate(pos, pawns);
+	}
+
+	/**
+	 * Scores a position from the point of view of the side to move, looking up
+	 * the pawn structure in a pawn table and scoring it only if it isn't there.
+	 *
+	 * @param pos The position to score.
+	 * @param table The pawn table to look in and fill.
+	 * @return The score in centipawns.
+	 */
+	public static int evaluate(Position pos, PawnTable table) {
+		PawnTable.Entry pawns = table.get(pos.getPawnKey());
+		if(pawns.getKey() != pos.getPawnKey())
+			evaluatePawns(pos, pawns, table.getCounts());
+		return evaluate(pos, pawns);
+	}
+
+	/**
+	 * Blends the totals kept by the position with the pawn structure and the terms
+	 * that depend on where the other pieces are.
+	 */
+	private static int evaluate(Position pos, PawnTable.Entry pawns) {
+		int mg = pos.getMiddlegameScore() + pawns.getMiddlegame();
+		int eg = pos.getEndgameScore() + pawns.getEndgame();
+		long whitePawns = pos.getBitboard(Piece.WHITE_PAWN);
+		long blackPawns = pos.getBitboard(Piece.BLACK_PAWN);
+		long whiteKing = pos.getBitboard(Piece.WHITE_KING);
+		long blackKing = pos.getBitboard(Piece.BLACK_KING);
+		int near = shield(whiteKing, whitePawns, 0, 1) - shield(blackKing, blackPawns, 1, 1);
+		int far = shield(whiteKing, whitePawns, 0, 2) - shield(blackKing, blackPawns, 1, 2);
+		mg += near * MG_WEIGHTS[SHIELD_NEAR] + far * MG_WEIGHTS[SHIELD_FAR];
+		eg += near * EG_WEIGHTS[SHIELD_NEAR] + far * EG_WEIGHTS[SHIELD_FAR];
+		long empty = ~pos.getOccupied();
+		for(long bb = pawns.getPassed() & whitePawns; bb != 0; bb &= bb - 1) {
+			int sq = Bitboard.first(bb);
+			if((empty & (1L << (sq + 8))) != 0) {
+				mg += MG_WEIGHTS[FREE_PASSED + (sq >>> 3)];
+				eg += EG_WEIGHTS[FREE_PASSED + (sq >>> 3)];
+			}
+		}
+		for(long bb = pawns.getPassed() & blackPawns; bb != 0; bb &= bb - 1) {
+			int sq = Bitboard.first(bb);
+			if((empty & (1L << (sq - 8))) != 0) {
+				mg -= MG_WEIGHTS[FREE_PASSED + 7 - (sq >>> 3)];
+				eg -= EG_WEIGHTS[FREE_PASSED + 7 - (sq >>> 3)];
+			}
+		}
+		int score = taper(mg, eg, pos.getPhase());
+		return pos.isWhiteToMove() ? score : -score;
+	}
+
+	/**
+	 * Blends a middlegame and an endgame score by the game phase.
+	 *
+	 * @param mg The middlegame score.
+	 * @param eg The endgame score.
+	 * @param phase The game phase, which counts as MAX_PHASE if it is more.
+	 * @return The blended score.
+	 */
+	public static int taper(int mg, int eg, int phase) {
+		phase = Math.min(phase, MAX_PHASE);
+		return (mg * phase + eg * (MAX_PHASE - phase)) / MAX_PHASE;
+	}
+
+	/**
+	 * Counts how often each term applies to a position, white's count less black's,
+	 * so that the evaluation from white's side is the tapered sum of each count times
+	 * its weights. This is what the Tuner fits the weights with.
+	 *
+	 * @param pos The position.
+	 * @param counts The array to fill, with TERMS entries.
+	 * @return The game phase of the position.
+	 */
+	public static int trace(Position pos, int[] counts) {
+		long[] bitboards = new long[Piece.BLACK_KING + 1];
+		for(int type = Piece.WHITE_PAWN; type <= Piece.BLACK_KING; type++) {
+			bitboards[type] = pos.getBitboard(type);
+		}
+		return trace(bitboards, counts);
+	}
+
+	/**
+	 * Counts how often each term applies to a position given only by where its pieces
+	 * are, as trace(Position, int[]) does.
+	 *
+	 * @param bitboards The bitboard of each piece type, indexed by type.
+	 * @param counts The array to fill, with TERMS entries.
+	 * @return The game phase of the position.
+	 */
+	public static int trace(long[] bitboards, int[] counts) {
+		Arrays.fill(counts, 0);
+		int phase = 0;
+		long occupied = 0;
+		for(int type = Piece.WHITE_PAWN; type <= Piece.BLACK_KING; type++) {
+			boolean white = (type - Piece.WHITE_PAWN) % 2 == 0;
+			int kind = KINDS[type];
+			occupied |= bitboards[type];
+			for(long bb = bitboards[type]; bb != 0; bb &= bb - 1) {
+				int sq = Bitboard.first(bb);
+				counts[MATERIAL + kind] += white ? 1 : -1;
+				counts[PIECE_SQUARE + kind * 64 + (white ? sq ^ 56 : sq)] += white ? 1 : -1;
+				phase += PHASE[type];
+			}
+		}
+		long whitePawns = bitboards[Piece.WHITE_PAWN];
+		long blackPawns = bitboards[Piece.BLACK_PAWN];
+		long passed = countPawns(whitePawns, blackPawns, counts, 0);
+		long whiteKing = bitboards[Piece.WHITE_KING];
+		long blackKing = bitboards[Piece.BLACK_KING];
+		counts[SHIELD_NEAR] += shield(whiteKing, whitePawns, 0, 1) - shield(blackKing, blackPawns, 1, 1);
+		counts[SHIELD_FAR] += shield(whiteKing, whitePawns, 0, 2) - shield(blackKing, blackPawns, 1, 2);
+		long empty = ~occupied;
+		for(long bb = passed & whitePawns; bb != 0; bb &= bb - 1) {
+			int sq = Bitboard.first(bb);
+			if((empty & (1L << (sq + 8))) != 0)
+				counts[FREE_PASSED + (sq >>> 3)]++;
+		}
+		for(long bb = passed & blackPawns; bb != 0; bb &= bb - 1) {
+			int sq = Bitboard.first(bb);
+			if((empty & (1L << (sq - 8))) != 0)
+				counts[FREE_PASSED + 7 - (sq >>> 3)]--;
+		}
+		return phase;
+	}
+
+	/**
+	 * Scores the doubled, isolated, backward and passed pawns of both sides, and
+	 * fills in a pawn table entry with the result.
+	 *
+	 * @param pos The position whose pawns are scored.
+	 * @param entry The entry to fill in.
+	 * @param counts Scratch space of PAWN_TERMS entries, whose contents are overwritten.
+	 */
+	private static void evaluatePawns(Position pos, PawnTable.Entry entry, int[] counts) {
+		Arrays.fill(counts, 0);
+		long passed = countPawns(pos.getBitboard(Piece.WHITE_PAWN), pos.getBitboard(Piece.BLACK_PAWN), counts, DOUBLED);
+		int mg = 0, eg = 0;
+		for(int term = DOUBLED; term < FREE_PASSED; term++) {
+			mg += counts[term - DOUBLED] * MG_WEIGHTS[term];
+			eg += counts[term - DOUBLED] * EG_WEIGHTS[term];
+		}
+		entry.set(pos.getPawnKey(), mg, eg, passed);
+	}
+
+	/**
+	 * Counts the doubled, isolated, backward and passed pawns of both sides, white's
+	 * less black's, and adds them to the counts of their terms.
+	 *
+	 * @param white The white pawns.
+	 * @param black The black pawns.
+	 * @param counts The counts, indexed by term less base.
+	 * @param base The term that the first count is for.
+	 * @return The passed pawns of both sides.
+	 */
+	private static long countPawns(long white, long black, int[] counts, int base) {
+		long whiteAttacks = Bitboard.pawnAttacks(white, Piece.WHITE);
+		long blackAttacks = Bitboard.pawnAttacks(black, Piece.BLACK);
+		long passed = 0;
+		for(int side = 0; side < 2; side++) {
+			long ours = (side == 0) ? white : black;
+			long theirs = (side == 0) ? black : white;
+			long theirAttacks = (side == 0) ? blackAttacks : whiteAttacks;
+			int sign = (side == 0) ? 1 : -1;
+			for(long bb = ours; bb != 0; bb &= bb - 1) {
+				int sq = Bitboard.first(bb);
+				int rank = (side == 0) ? sq >>> 3 : 7 - (sq >>> 3);
+				int stop = (side == 0) ? sq + 8 : sq - 8;
+				boolean doubled = (ours & FRONT_SPAN[side][sq]) != 0;
+				if(doubled)
+					counts[DOUBLED - base] += sign;
+				if((ours & ADJACENT_FILES[sq & 7]) == 0)
+					counts[ISOLATED - base] += sign;
+				// No pawn can come up to defend it, and it can't safely move up to them
+				else if((ours & SUPPORT_SPAN[side][sq]) == 0 && (theirAttacks & (1L << stop)) != 0)
+					counts[BACKWARD - base] += sign;
+				// Only the front pawn of a doubled pair counts as passed
+				if(!doubled && (theirs & PASSED_SPAN[side][sq]) == 0) {
+					passed |= 1L << sq;
+					counts[PASSED - base + rank] += sign;
+				}
+			}
+		}
+		return passed;
+	}
+
+	/**
+	 * Counts the pawns sheltering a king that is on its first two ranks.
+	 *
+	 * @param king The bitboard of the king.
+	 * @param pawns The bitboard of the king's own pawns.
+	 * @param side 0 for white and 1 for black.
+	 * @param distance How many ranks in front of the king to count pawns on.
+	 * @return The number of pawns on that rank on the king's file or next to it.
+	 */
+	private static int shield(long king, long pawns, int side, int distance) {
+		if(king == 0)
+			return 0;
+		int sq = Bitboard.first(king);
+		int rank = (side == 0) ? sq >>> 3 : 7 - (sq >>> 3);
+		if(rank > 1)
+			return 0;
+		long files = (Bitboard.FILE_A << (sq & 7)) | ADJACENT_FILES[sq & 7];
+		int step = (side == 0) ? 8 : -8;
+		return Long.bitCount(pawns & files & (Bitboard.RANK_1 << ((sq & ~7) + distance * step)));
+	}
+
+}
@@ -629,8 +629,6 @@ public class Game {
 		if(!move.hasStartSquare())
 			return false;
 		else {
-			if(pos.isStillCheckAfterMove(move))
-				throw new IllegalMoveException("King is still in check");
 			Square start = move.getStartSquare();
 			Piece moving = pos.getPieceAt(start);
 			// debug block
@@ -643,10 +641,11 @@ public class Game {
 //				throw new PieceTypeException(moving.getIdentifier(), move.getPieceType());
 			moving.setNextMove(move);
 			move.setPieceType(moving);
-			if(moving.checkLegalMove(pos))
-				return true;
-			else
+			if(!moving.checkLegalMove(pos))
 				throw new IllegalMoveException(move);
+			if(pos.isStillCheckAfterMove(move))
+				throw new IllegalMoveException("King is still in check");
+			return true;
 		}
 	}
 	
@@ -795,7 +794,7 @@ public class Game {
 			else if(moving.isPawn()
 					&& Math.abs(move.getTargetY() - move.getStartY()) == 2)
 				pos.setEnPassant(moving, 
-						new Square(moving.getCurrentFile(),
+						Square.of(moving.getCurrentFile(),
 								(moving.isWhite())?(3):(6)));
 			else
 				move.setCapture(false);
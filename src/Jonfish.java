@@ -1,13 +1,13 @@
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
 /**
- * Very simple minimax algorithm for chess stuff.
+ * Very simple alpha-beta search for chess stuff.
  * 
  * @author jhshi
  *
@@ -15,155 +15,149 @@ import java.util.Scanner;
 @SuppressWarnings("unused")
 public class Jonfish {
 	
+	/**
+	 * Plays a game against the computer.
+	 * 
+	 * @param args Optionally the path of a weights file written by the Tuner, and
+	 * "-network" followed by the path of a network to score positions with instead.
+	 */
 	public static void main(String[] args) {
+		// Tuned weights have to be in place before the game's position is set up
+		for(int i = 0; i < args.length; i++) {
+			try {
+				if(args[i].equals("-network") && i + 1 < args.length)
+					loadNetwork(args[++i]);
+				else
+					loadWeights(args[i]);
+			}
+			catch(IOException e) {
+				System.out.println("Could not load " + args[i] + ": " + e.getMessage());
+			}
+		}
 		Scanner sc = new Scanner(System.in);
 //		Game.vsComputerGame(sc, "5k2/2r1ppp1/8/8/8/3PPP2/4K3/8 w - -", false);
 //		Game.vsComputerGame(sc, "1r1r2k1/pp4p1/3Pppn1/1pRn3N/3P3P/8/PP1B1PP1/1K5R w - - 1 2", true);
 		Game.vsComputerGame(sc, "6k1/6pp/8/8/8/8/6PP/5Q1K b - - 0 1", false);
 	}
 	
-	private static int initialSideToMove = 0;
+	/**
+	 * The time the computer should spend on a move, in milliseconds. No new iteration
+	 * is started after this, but the one already running is allowed to finish.
+	 */
+	public static long softTimeLimit = 2000;
+	
+	/**
+	 * The longest the computer may ever spend on a move, in milliseconds.
+	 */
+	public static long hardTimeLimit = 5000;
+	
+	/**
+	 * The size of the transposition table, in megabytes.
+	 */
+	private static int hashSize = 64;
 	
 	/**
-	 * Evaluates a position, taking into account its complexity.
-	 * The depth of evaluation is determined by the number of possible moves
-	 * in the current position. Crude, but works.
+	 * The searcher used for every move. Its transposition table is kept from move
+	 * to move, so the results of one search help the next. It starts with one
+	 * thread for each processor.
+	 */
+	private static ParallelSearcher searcher = new ParallelSearcher(
+			Runtime.getRuntime().availableProcessors(), hashSize);
+	
+	/**
+	 * Changes the size of the transposition table, which throws away what is in it.
+	 * 
+	 * @param megabytes The new size in megabytes.
+	 */
+	public static void setHashSize(int megabytes) {
+		hashSize = megabytes;
+		searcher.getTranspositionTable().resize(megabytes);
+	}
+	
+	/**
+	 * Changes the number of threads the computer searches with.
+	 * 
+	 * @param threads The number of threads, at least one.
+	 */
+	public static void setThreads(int threads) {
+		searcher.setThreads(threads);
+	}
+	
+	/**
+	 * The network positions are scored with, or null to use the hand-written evaluation.
+	 */
+	private static Network network = null;
+	
+	/**
+	 * Loads a network to score positions with in place of the hand-written evaluation.
+	 * 
+	 * @param path The path of the weights file, or null to go back to the hand-written evaluation.
+	 * @throws IOException If the file can't be read as a network.
+	 */
+	public static void loadNetwork(String path) throws IOException {
+		network = (path == null) ? null : Network.load(path);
+		// Scores from the old evaluation would be mixed with the new
+		searcher.getEvalCache().clear();
+	}
+	
+	/**
+	 * Loads evaluation weights written by the Tuner in place of the default ones.
+	 * Positions keep the totals they were set up with, so this must be called before
+	 * the game's position is made, such as at the start of main().
+	 * 
+	 * @param path The path of the weights file.
+	 * @throws IOException If the file can't be read as weights.
+	 */
+	public static void loadWeights(String path) throws IOException {
+		Evaluation.loadWeights(path);
+		// Scores from the old weights would be mixed with the new
+		searcher.getEvalCache().clear();
+	}
+	
+	/**
+	 * Finds the best move in the current position of a game, searching deeper and
+	 * deeper until the time limits run out.
 	 * 
 	 * @param g The current game.
 	 * @return The best move in the position.
 	 */
 	public static Move startEval(Game g) {
-		int complexity = g.getAllMoves().size();
-		initialSideToMove = g.getPosition().getSideToMove();
-		int startDepth;
-		// idk why i did this
-		double interpreter = Math.log(complexity);
-		System.out.println("Complexity is " + interpreter);
-		System.out.println("Press enter to start computer evaluation");
-		new Scanner(System.in).nextLine();
-		if(interpreter > 2.5)
-			startDepth = 4;
-		else if(interpreter > 2.2)
-			startDepth = 6;
-		else if(interpreter > 2)
-			startDepth = 8;
-		else if(interpreter > 1)
-			startDepth = 10;
-		else
-			startDepth = 12;
-		Move m = eval(g, startDepth);
+		Move m = eval(g);
 		System.out.println(m);
 		return m;
 	}
 	
 	/**
-	 * Evaluates a position through simple minimax and returns the best move
-	 * for the side to move.
+	 * Evaluates a position through iterative deepening alpha-beta search and
+	 * returns the best move for the side to move.
 	 * 
 	 * @param g The game to evaluate.
-	 * @param depth The depth remaining in this evaluation.
 	 * @return The best move in this position.
 	 */
-	private static Move eval(Game g, int depth) {
-		System.out.println("eval, depth = " + depth);
-		Position p = g.getPosition();
-		String fen = p.getImportantFEN();
+	private static Move eval(Game g) {
+		// The search makes and unmakes moves on its own copy, so the game is never touched
+		Position p = new Position(g.getPosition());
+		long key = p.getZobristKey();
 		// Handles openings
-		if(openingFENToMove.containsKey(fen))
-			return openingFENToMove.get(fen).pickAGoodMove();
+		if(openingKeyToMove.containsKey(key))
+			return openingKeyToMove.get(key).pickAGoodMove();
 		// Everything else
-		List<Move> allMoves = p.getAllMoves();
-//		System.out.println(allMoves);
-		int toMove = p.getSideToMove();
-		Move maxMove = allMoves.get(0);
-		int maxScore = -1000;
-		Move minMove = allMoves.get(0);
-		int minScore = 1000;
-		// Terminalizes
-		for(Move m : allMoves) {
-			Game dummy = new Game(fen);
-			dummy.makeMove(m);
-			System.out.println("eval on move = " + m);
-			int eval = evalScore(dummy, depth - 1);
-			if((eval == maxScore && Math.random() > 0.2)
-					|| eval > maxScore) {
-				maxScore = eval;
-				maxMove = m;
-			}
-			if((eval == minScore && Math.random() > 0.2)
-					|| eval < minScore) {
-				minScore = eval;
-				minMove = m;
-			}
-		}
-		if(toMove == Piece.WHITE)
-			return maxMove;
-		else
-			return minMove;
+		p.setNetwork(network);
+		searcher.setLimits(Searcher.MAX_PLY, softTimeLimit, hardTimeLimit, 0);
+		searcher.getEvalCache().resetCounters();
+		int best = searcher.think(p);
+		Searcher main = searcher.getMainSearcher();
+		System.out.println("Depth " + main.getCompletedDepth() + ", score " + main.getBestScore()
+				+ " cp, nodes " + searcher.getNodes() + " on " + searcher.getThreads() + " threads, time "
+				+ main.getElapsedTime() + " ms, hashfull " + searcher.getTranspositionTable().hashfull()
+				+ ", eval cache hits " + (searcher.getEvalCache().hitRate() / 10.0) + "%");
+		return PackedMove.toMove(best, p);
 	}
 	
-	private static int evalScore(Game g, int depth) {
-		System.out.println("evalScore, depth = " + depth);
-		Position p = g.getPosition();
-		String fen = p.getImportantFEN();
-		int toMove = p.getSideToMove();
-		List<Move> allMoves = p.getAllMoves();
-		if(allMoves.size() == 0)
-			return g.getPosition().getDelta();
-		Move maxMove = allMoves.get(0);
-		int maxScore = -1000;
-		Move minMove = allMoves.get(0);
-		int minScore = 1000;
-		if(depth == 0) {
-			for(Move m : allMoves) {
-				int score = scorePosAfterMove(fen, m);
-				// If two moves evaluate to the same, it picks a random one
-				if((score == maxScore && Math.random() > 0.2)
-						|| score > maxScore) {
-					maxScore = score;
-					maxMove = m;
-				}
-				if((score == minScore && Math.random() > 0.2)
-						|| score < minScore) {
-					minScore = score;
-					minMove = m;
-				}
-			}
-		}
-		else {
-			for(Move m: allMoves) {
-				Game test = new Game(fen);
-				test.makeMove(m);
-				int score = evalScore(test, depth - 1);
-				// If two moves evaluate to the same, it picks a random one
-				if((score == maxScore && Math.random() > 0.2)
-						|| score > maxScore) {
-					maxScore = score;
-					maxMove = m;
-				}
-				if((score == minScore && Math.random() > 0.2)
-						|| score < minScore) {
-					minScore = score;
-					minMove = m;
-				}
-			}
-		}
-		if(toMove == Piece.WHITE)
-			return maxScore;
-		else
-			return minScore;
-	}
-	
-	private static int scorePosAfterMove(String fen, Move m) {
-		Game dummy = new Game(fen);
-		dummy.makeMove(m);
-		int score = dummy.getPosition().getDelta();
-		System.out.println("Move "+ m + ", score " + score);
-//		System.out.println(dummy.getPosition().getFEN());
-		return score;
-	}
-	
-	public static Map<String, Opening> openingFENToMove = new HashMap<String, Opening>();
+	/**
+	 * Maps the Zobrist key of each opening position to the opening.
+	 */
+	public static Map<Long, Opening> openingKeyToMove = new HashMap<Long, Opening>();
 	
 	/**
 	 * Initializes the values of the opening map.
@@ -336,13 +330,13 @@ public class Jonfish {
 		
 		/**
 		 * Makes a new opening from an FEN string.
-		 * Also puts this opening in the opening map.
+		 * Also puts this opening in the opening map, under the Zobrist key of the position.
 		 * 
 		 * @param FEN The position string of the opening.
 		 */
 		public Opening(String FEN, ArrayList<Move> goodMoves) {
 			this.goodMoves = goodMoves;
-			openingFENToMove.put(FEN, this);
+			openingKeyToMove.put(new Position(FEN).getZobristKey(), this);
 		}
 		
 		/**
@@ -26,10 +26,6 @@ public class King extends Piece implements ChecksIfMoved {
 			throw new PieceColorException();
 	}
 	
-	private King(String startSquare) {
-		super(startSquare, BLANK);
-	}
-	
 	@Override
 	public Piece makeCopy() {
 		Piece o = new King(getCurrentFile(), getCurrentRank(), getColor());
@@ -71,42 +67,7 @@ public class King extends Piece implements ChecksIfMoved {
 	 */
 	@Override
 	public List<Move> getPossibleMoves(Position pos) {
-		List<Move> possible = new LinkedList<Move>();
-		Square dummySquare = this.getCurrentSquare();
-		int dummyFile = this.getCurrentX();
-		int dummyRank = this.getCurrentY();
-		char id = this.getIdentifier();
-		if(this.isWhite()) {
-			if(pos.whiteCanCastleKingside())
-				possible.add(new Move("castle kingside"));
-			if(pos.whiteCanCastleQueenside())
-				possible.add(new Move("castle queenside"));
-		}
-		else {
-			if(pos.blackCanCastleKingside())
-				possible.add(new Move("castle kingside"));
-			if(pos.blackCanCastleQueenside())
-				possible.add(new Move("castle queenside"));
-		}
-		for(int file = dummyFile - 1; file <= dummyFile + 1; file++) {
-			for(int rank = dummyRank + 1; rank >= dummyRank - 1; rank--) {
-				if(file != 0 && rank != 0) {
-					try {
-						Square sq = pos.getSquareAt(file, rank);
-						if(!pos.getPieceAt(sq).isLabel()
-								&& !pos.isAttacked(sq) && pos.canStopOn(sq, this))
-							possible.add(new Move(id, dummySquare, sq.getX(), sq.getY()));
-					}
-					catch(IndexOutOfBoardException e) {
-						
-					}
-				}
-			}
-		}
-		// An inelegant fix to account for checks, but perhaps a necessary one
-		// The alternative is to go back and do this in every single method
-		possible.removeIf(m -> (m.getCastling() == 0 && pos.isStillCheckAfterMove(m)));
-		return possible;
+		return MoveGenerator.getLegalMoves(pos, this);
 	}
 	
 	@Override
@@ -131,7 +92,7 @@ public class King extends Piece implements ChecksIfMoved {
 	 * @return True if and only if a king of the moving color is adjacent to sq.
 	 */
 	public static boolean isAttacking(Square sq, Position pos) {
-		return findAttacking(sq, pos).size() > 0;
+		return findAttackingBitboard(sq, pos) != 0;
 	}
 	
 	/**
@@ -143,6 +104,9 @@ public class King extends Piece implements ChecksIfMoved {
 	 */
 	public static LinkedList<Piece> findCanMoveTo(Square sq, Position pos) {
 		LinkedList<Piece> test = findAttacking(sq, pos);
+		// A king can't take a piece of its own color
+		if(pos.getColorAt(sq) == pos.getSideToMove())
+			test.clear();
 		test.removeIf(p -> pos.isStillCheckAfterMove(p.getCurrentSquare(), sq));
 		return test;
 	}
@@ -156,31 +120,22 @@ public class King extends Piece implements ChecksIfMoved {
 	 * Its length should never be more than 1, for obvious reasons.
 	 */
 	public static LinkedList<Piece> findAttacking(Square sq, Position pos) {
-		LinkedList<Piece> possible = new LinkedList<Piece>();
-		// Creates a dummy piece
-		King dummy = new King(sq.toString());
-		int dummyFile = dummy.getCurrentX();
-		int dummyRank = dummy.getCurrentY();
-		int dummyColor = pos.getColorAt(sq);
+		return pos.getPiecesOn(findAttackingBitboard(sq, pos));
+	}
+	
+	/**
+	 * Finds the squares of all kings of the moving color that are attacking a given square.
+	 * 
+	 * @param sq The square to check.
+	 * @param pos The current position.
+	 * @return A bitboard of the kings that can move to a given square.
+	 */
+	public static long findAttackingBitboard(Square sq, Position pos) {
 		int movingColor = pos.getSideToMove();
-		if(dummyColor == movingColor)
-			return possible;
-		for(int file = dummyFile - 1; file <= dummyFile + 1; file++) {
-			for(int rank = dummyRank + 1; rank >= dummyRank - 1; rank--) {
-				try {
-					Piece p = pos.getPieceAt(file, rank);
-					if(p != null && p instanceof King && p.getColor() == movingColor)
-						possible.add(p);
-				}
-				catch(IndexOutOfBoardException e) {
-					
-				}
-				// Remove this line if you ever want to have more than one king for some reason
-				if(possible.size() > 0)
-					return possible;
-			}
-		}
-		return possible;
+		if(movingColor == BLANK || pos.getColorAt(sq) == movingColor)
+			return Bitboard.EMPTY;
+		return Bitboard.kingAttacksFrom(Bitboard.index(sq))
+				& pos.getBitboard((movingColor == WHITE) ? WHITE_KING : BLACK_KING);
 	}
 	
 	@Override
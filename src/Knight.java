@@ -8,7 +8,7 @@ public class Knight extends Piece {
 		Position pos = g.getPosition();
 		System.out.println(pos);
 		System.out.println(((Knight) pos.getPieceAt('a', 6)).getPossibleMoves(pos));
-		System.out.println(Knight.findAttacking(new Square('b',4), pos));
+		System.out.println(Knight.findAttacking(Square.of('b',4), pos));
 	}*/
 	
 	public Knight(char file, int rank, int color) {
@@ -21,10 +21,6 @@ public class Knight extends Piece {
 			throw new PieceColorException();
 	}
 	
-	private Knight(String startSquare) {
-		super(startSquare, BLANK);
-	}
-	
 	@Override
 	public Piece makeCopy() {
 		return new Knight(getCurrentFile(), getCurrentRank(), getColor());
@@ -59,44 +55,7 @@ public class Knight extends Piece {
 	 */
 	@Override
 	public List<Move> getPossibleMoves(Position pos) {
-		List<Move> possible = new LinkedList<Move>();
-		Square dummySquare = this.getCurrentSquare();
-		int dummyFile = this.getCurrentX();
-		int dummyRank = this.getCurrentY();
-		// DEBUG
-//		System.out.println(dummyFile);
-//		System.out.println(dummyRank);
-		// DEBUG
-		char id = this.getIdentifier();
-		Piece[] tests = new Piece[8];
-		// Ranks are all incremented by one for some reason
-		tests[0] = findPieceAt(dummyFile + 1, dummyRank + 2, pos);
-		tests[1] = findPieceAt(dummyFile + 2, dummyRank + 1, pos);		
-		tests[2] = findPieceAt(dummyFile + 2, dummyRank - 1, pos);
-		tests[3] = findPieceAt(dummyFile + 1, dummyRank - 2, pos);
-		tests[4] = findPieceAt(dummyFile - 1, dummyRank - 2, pos);
-		tests[5] = findPieceAt(dummyFile - 2, dummyRank - 1, pos);
-		tests[6] = findPieceAt(dummyFile - 2, dummyRank + 1, pos);
-		tests[7] = findPieceAt(dummyFile - 1, dummyRank + 2, pos);
-		for(Piece p : tests) {
-			try {
-//				System.out.println("file: " + p.getCurrentFile() + " rank: " + p.getCurrentRank());
-				if(pos.canStopOn(p.getCurrentSquare(), this))
-					possible.add(new Move(id, dummySquare, p.getCurrentX(), p.getCurrentY()));
-			}
-			catch(NullPointerException | IndexOutOfBoardException e) {
-		
-			}
-		}
-		// An inelegant fix to account for checks, but perhaps a necessary one
-		// The alternative is to go back and do this in every single method
-		possible.removeIf(m -> (pos.isStillCheckAfterMove(m)));
-		// DEBUG
-//		for(Move p : possible)
-//			System.out.println(pos.getPieceAt(p.getStartSquare()) +
-//					"" + p.getStartSquare() + "-" + p.getTargetSquare());
-		// DEBUG
-		return possible;
+		return MoveGenerator.getLegalMoves(pos, this);
 	}
 	
 	/**
@@ -109,7 +68,7 @@ public class Knight extends Piece {
 	 * @return If the square is under attack by an enemy knight.
 	 */
 	public static boolean isAttacking(Square sq, Position pos) {
-		return Knight.findAttacking(sq, pos).size() > 0;
+		return findAttackingBitboard(sq, pos) != 0;
 	}
 
 	/**
@@ -120,59 +79,24 @@ public class Knight extends Piece {
 	 * @return All possible knights of the correct color that can go to that square.
 	 */
 	public static LinkedList<Piece> findAttacking(Square sq, Position pos) {
-		LinkedList<Piece> possible = new LinkedList<Piece>();
-		// Creates a dummy piece
-		Knight dummy = new Knight(sq.toString());
-		int dummyFile = dummy.getCurrentX();
-		int dummyRank = dummy.getCurrentY();
-		int dummyColor = pos.getColorAt(sq);
-		int movingColor = pos.getSideToMove();
-		if(dummyColor == movingColor)
-			return possible;
-		/* 
-		 * POSSIBLE KNIGHT MOVES
-		 * rank indices are weird for essentially semantic reasons
-		 * idk why
-		 * _|_|_|_|_|_|_|_|  0: [file + 1][rank + 3]
-		 * _|_|7|_|0|_|_|_|  1: [file + 2][rank + 2]
-		 * _|6|_|_|_|1|_|_|  2: [file + 2][rank]
-		 * _|_|_|N|_|_|_|_|  3: [file + 1][rank - 1]
-		 * _|5|_|_|_|2|_|_|  4: [file - 1][rank - 1]
-		 * _|_|4|_|3|_|_|_|  5: [file - 2][rank]
-		 * _|_|_|_|_|_|_|_|  6: [file - 2][rank + 2]
-		 * _|_|_|_|_|_|_|_|  7: [file - 1][rank + 3]
-		 */
-		Piece[] tests = new Piece[8];
-		tests[0] = findPieceAt(dummyFile + 1, dummyRank + 2, pos);
-		tests[1] = findPieceAt(dummyFile + 2, dummyRank + 1, pos);
-		tests[2] = findPieceAt(dummyFile + 2, dummyRank - 1, pos);
-		tests[3] = findPieceAt(dummyFile + 1, dummyRank - 2, pos);
-		tests[4] = findPieceAt(dummyFile - 1, dummyRank - 2, pos);
-		tests[5] = findPieceAt(dummyFile - 2, dummyRank - 1, pos);
-		tests[6] = findPieceAt(dummyFile - 2, dummyRank + 1, pos);
-		tests[7] = findPieceAt(dummyFile - 1, dummyRank + 2, pos);
-		for(Piece p : tests) {
-			if(p != null && p instanceof Knight && p.getColor() == movingColor)
-				possible.add(p);
-		}
-		return possible;
+		return pos.getPiecesOn(findAttackingBitboard(sq, pos));
 	}
 	
 	/**
-	 * Finds the piece at a given square.
+	 * Finds the squares of all knights of the moving color that can attack a given square.
+	 * A knight attacks a square exactly when a knight on that square would attack it back,
+	 * so this is a single table lookup.
 	 * 
-	 * @param file The file of the piece.
-	 * @param rank The rank of the piece.
+	 * @param sq The square to be tested.
 	 * @param pos The current position.
-	 * @return The piece at the square if it's on the board, null if it is not.
+	 * @return A bitboard of the knights of the correct color that can go to that square.
 	 */
-	private static Piece findPieceAt(int file, int rank, Position pos) {
-		try {
-			return pos.getPieceAt(file, rank);
-		}
-		catch(IndexOutOfBoardException e) {
-			return null;
-		}
+	public static long findAttackingBitboard(Square sq, Position pos) {
+		int movingColor = pos.getSideToMove();
+		if(movingColor == BLANK || pos.getColorAt(sq) == movingColor)
+			return Bitboard.EMPTY;
+		return Bitboard.knightAttacksFrom(Bitboard.index(sq))
+				& pos.getBitboard((movingColor == WHITE) ? WHITE_KNIGHT : BLACK_KNIGHT);
 	}
 	
 }
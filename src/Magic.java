@@ -0,0 +1,160 @@
+/**
+ * Precomputed attack tables for sliding pieces, indexed by magic multiplication.
+ * For each square, the occupied squares that could block a rook or bishop are masked
+ * out, multiplied by a "magic" number and shifted down, which gives a unique index
+ * into a table of attack sets. Looking up the attacks of a slider then costs one
+ * multiply and one array access, no matter how far it can move.
+ * The magic numbers are searched for once, when the class is loaded.
+ */
+public final class Magic {
+
+	private static final long[] ROOK_MASKS = new long[64];
+	private static final long[] ROOK_MAGICS = new long[64];
+	private static final int[] ROOK_SHIFTS = new int[64];
+	private static final int[] ROOK_OFFSETS = new int[64];
+	private static final long[] ROOK_TABLE;
+
+	private static final long[] BISHOP_MASKS = new long[64];
+	private static final long[] BISHOP_MAGICS = new long[64];
+	private static final int[] BISHOP_SHIFTS = new int[64];
+	private static final int[] BISHOP_OFFSETS = new int[64];
+	private static final long[] BISHOP_TABLE;
+
+	/**
+	 * State of the random number generator used to search for magic numbers.
+	 * The seed is fixed, so every run builds the same tables.
+	 */
+	private static long seed = 0x5DEECE66DL;
+
+	/**
+	 * Finds the masks and magic numbers, then fills in the attack tables.
+	 */
+	static {
+		long edgeRanks = Bitboard.RANK_1 | Bitboard.RANK_8;
+		long edgeFiles = Bitboard.FILE_A | Bitboard.FILE_H;
+		int rookSize = 0;
+		int bishopSize = 0;
+		for(int sq = 0; sq < 64; sq++) {
+			long rank = Bitboard.RANK_1 << (sq & ~7);
+			long file = Bitboard.FILE_A << (sq & 7);
+			ROOK_MASKS[sq] = Bitboard.rookRayAttacks(sq, Bitboard.EMPTY)
+					& ~(edgeRanks & ~rank) & ~(edgeFiles & ~file);
+			BISHOP_MASKS[sq] = Bitboard.bishopRayAttacks(sq, Bitboard.EMPTY)
+					& ~(edgeRanks | edgeFiles);
+			ROOK_SHIFTS[sq] = 64 - Long.bitCount(ROOK_MASKS[sq]);
+			BISHOP_SHIFTS[sq] = 64 - Long.bitCount(BISHOP_MASKS[sq]);
+			ROOK_OFFSETS[sq] = rookSize;
+			BISHOP_OFFSETS[sq] = bishopSize;
+			rookSize += 1 << Long.bitCount(ROOK_MASKS[sq]);
+			bishopSize += 1 << Long.bitCount(BISHOP_MASKS[sq]);
+		}
+		ROOK_TABLE = new long[rookSize];
+		BISHOP_TABLE = new long[bishopSize];
+		for(int sq = 0; sq < 64; sq++) {
+			ROOK_MAGICS[sq] = findMagic(sq, ROOK_MASKS[sq], ROOK_SHIFTS[sq], true,
+					ROOK_TABLE, ROOK_OFFSETS[sq]);
+			BISHOP_MAGICS[sq] = findMagic(sq, BISHOP_MASKS[sq], BISHOP_SHIFTS[sq], false,
+					BISHOP_TABLE, BISHOP_OFFSETS[sq]);
+		}
+	}
+
+	private Magic() {
+
+	}
+
+	/**
+	 * Looks up every square a rook attacks.
+	 *
+	 * @param index The bit index of the rook.
+	 * @param occupied Every occupied square on the board.
+	 * @return The squares the rook attacks, including the first blocker in each direction.
+	 */
+	public static long rookAttacks(int index, long occupied) {
+		return ROOK_TABLE[ROOK_OFFSETS[index]
+				+ (int) (((occupied & ROOK_MASKS[index]) * ROOK_MAGICS[index]) >>> ROOK_SHIFTS[index])];
+	}
+
+	/**
+	 * Looks up every square a bishop attacks.
+	 *
+	 * @param index The bit index of the bishop.
+	 * @param occupied Every occupied square on the board.
+	 * @return The squares the bishop attacks, including the first blocker in each direction.
+	 */
+	public static long bishopAttacks(int index, long occupied) {
+		return BISHOP_TABLE[BISHOP_OFFSETS[index]
+				+ (int) (((occupied & BISHOP_MASKS[index]) * BISHOP_MAGICS[index]) >>> BISHOP_SHIFTS[index])];
+	}
+
+	/**
+	 * Looks up every square a queen attacks.
+	 *
+	 * @param index The bit index of the queen.
+	 * @param occupied Every occupied square on the board.
+	 * @return The squares the queen attacks, including the first blocker in each direction.
+	 */
+	public static long queenAttacks(int index, long occupied) {
+		return rookAttacks(index, occupied) | bishopAttacks(index, occupied);
+	}
+
+	/**
+	 * Searches for a magic number that maps every subset of the mask to a slot
+	 * of the table without two different attack sets sharing a slot, and fills in
+	 * that part of the table.
+	 *
+	 * @param sq The bit index of the square.
+	 * @param mask The squares that can block the slider.
+	 * @param shift The number of bits to shift the product down by.
+	 * @param rook True to build rook attacks, false to build bishop attacks.
+	 * @param table The attack table to fill in.
+	 * @param offset The position of this square's slots in the table.
+	 * @return The magic number that was found.
+	 */
+	private static long findMagic(int sq, long mask, int shift, boolean rook, long[] table, int offset) {
+		int size = 1 << (64 - shift);
+		long[] occupancies = new long[size];
+		long[] attacks = new long[size];
+		// Enumerates every subset of the mask
+		long subset = 0;
+		for(int i = 0; i < size; i++) {
+			occupancies[i] = subset;
+			attacks[i] = rook ? Bitboard.rookRayAttacks(sq, subset) : Bitboard.bishopRayAttacks(sq, subset);
+			subset = (subset - mask) & mask;
+		}
+		int[] usedBy = new int[size];
+		int attempt = 0;
+		while(true) {
+			long magic = nextRandom() & nextRandom() & nextRandom();
+			// Magics that don't spread the mask into the top byte rarely work
+			if(Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6)
+				continue;
+			attempt++;
+			boolean failed = false;
+			for(int i = 0; i < size && !failed; i++) {
+				int slot = (int) ((occupancies[i] * magic) >>> shift);
+				if(usedBy[slot] != attempt) {
+					usedBy[slot] = attempt;
+					table[offset + slot] = attacks[i];
+				}
+				// Two occupancies may share a slot only if they have the same attacks
+				else if(table[offset + slot] != attacks[i])
+					failed = true;
+			}
+			if(!failed)
+				return magic;
+		}
+	}
+
+	/**
+	 * Returns the next number of a xorshift generator.
+	 *
+	 * @return A pseudo-random long.
+	 */
+	private static long nextRandom() {
+		seed ^= seed >>> 12;
+		seed ^= seed << 25;
+		seed ^= seed >>> 27;
+		return seed * 2685821657736338717L;
+	}
+
+}
@@ -5,12 +5,6 @@ import java.util.regex.*;
 
 public class Move {
 	
-	/**
-	 * Controls whether square objects should be passed 
-	 * by reference, or as cloned values.
-	 */
-	private static boolean squaresByReference = false;
-	
 //	****************** PROPERTIES ******************
 	
 	private String inputString;
@@ -185,9 +179,9 @@ public class Move {
 	 */
 	public Move(Move o) {
 		inputString = o.getInputString();
-		targetSquare = new Square(o.getTargetSquare());
-		if(o.getStartSquare() != null)
-			startSquare = new Square(o.getStartSquare());
+		// Squares are immutable, so they can be shared
+		targetSquare = o.getTargetSquare();
+		startSquare = o.getStartSquare();
 		pieceType = o.getPieceType();
 		specifier = o.getSpecifier();
 		capture = o.isCapture();
@@ -266,7 +260,7 @@ public class Move {
 	 */
 	public Move(char pieceType, Square startSquare, int targetX, int targetY) {
 		this(pieceType, Square.xToFileMap.get(targetX), targetY);
-		this.startSquare = new Square(startSquare);
+		this.startSquare = startSquare;
 		this.promotingTo = 0;
 	}
 	
@@ -284,15 +278,15 @@ public class Move {
 	public Move(char pieceType, char specifier, boolean capture, char targetX, int targetY, char promotingTo, boolean check) {
 		this.pieceType = pieceType;
 		this.capture = capture;
-		this.targetSquare = new Square(targetX, targetY);
+		this.targetSquare = Square.of(targetX, targetY);
 		this.promotingTo = promotingTo;
 		this.castling = 0;
 		this.check = check;
 		this.specifier = specifier;
 		if(Character.isDigit(specifier))
-			this.startSquare = new Square(Character.getNumericValue(specifier));
+			this.startSquare = Square.of(0, Character.getNumericValue(specifier));
 		else
-			this.startSquare = new Square(specifier);
+			this.startSquare = Square.of(specifier, 0);
 	}
 	
 	/**
@@ -405,8 +399,8 @@ public class Move {
 
 			}
 		}
-		this.startSquare = new Square(interpretLongVerboseStartSquare(inputString));
-		this.targetSquare = new Square(interpretLongVerboseTargetSquare(inputString));
+		this.startSquare = Square.of(interpretLongVerboseStartSquare(inputString));
+		this.targetSquare = Square.of(interpretLongVerboseTargetSquare(inputString));
 		this.capture = interpretVerboseCapture(this.inputString);
 		this.notationType = IS_LONG_VERBOSE;
 	}
@@ -426,8 +420,8 @@ public class Move {
 			}
 		}
 		this.specifier = interpretVerboseSpecifier(inputString);
-		this.startSquare = new Square(specifier);
-		this.targetSquare = new Square(interpretShortVerboseTargetSquare(inputString));
+		this.startSquare = Square.ofSpecifier(specifier);
+		this.targetSquare = Square.of(interpretShortVerboseTargetSquare(inputString));
 		this.capture = interpretVerboseCapture(this.inputString);
 		this.notationType = IS_SHORT_VERBOSE;
 	}
@@ -436,8 +430,8 @@ public class Move {
 	 * Translates a simple verbose input into properties of a move.
 	 */
 	private void selfTranslateSimpleVerboseString() {
-		this.startSquare = new Square(interpretSimpleVerboseStartSquare(inputString));
-		this.targetSquare = new Square(interpretSimpleVerboseTargetSquare(inputString));
+		this.startSquare = Square.of(interpretSimpleVerboseStartSquare(inputString));
+		this.targetSquare = Square.of(interpretSimpleVerboseTargetSquare(inputString));
 		this.notationType = IS_SIMPLE_VERBOSE;
 	}
 	
@@ -462,7 +456,7 @@ public class Move {
 		else
 			i++;
 		// Sets starting file and rank
-		this.setStartSquare(new Square(inputString.charAt(i), Character.getNumericValue(inputString.charAt(i + 1))));
+		this.setStartSquare(Square.of(inputString.charAt(i), Character.getNumericValue(inputString.charAt(i + 1))));
 		if(inputString.matches("^.*[a-h][1-8][a-h][1-8].*$"))
 			i += 2;
 		else
@@ -470,7 +464,7 @@ public class Move {
 		// Sets capture
 		this.capture = interpretCapture(inputString);
 		// Sets destination file and rank
-		this.setTargetSquare(new Square(inputString.charAt(i), Character.getNumericValue(inputString.charAt(i + 1))));
+		this.setTargetSquare(Square.of(inputString.charAt(i), Character.getNumericValue(inputString.charAt(i + 1))));
 		// Sets check
 		this.check = interpretCheck(inputString);
 		// Sets checkmate
@@ -493,17 +487,14 @@ public class Move {
 			destination = m.group();
 		//System.out.println(destination);
 		assert(destination.length() == 2);
-		this.setTargetSquare(new Square(destination.charAt(0), Character.getNumericValue(destination.charAt(1))));
+		this.setTargetSquare(Square.of(destination.charAt(0), Character.getNumericValue(destination.charAt(1))));
 		// Sets start square, if any
 		try {
 			this.specifier = interpretSpecifier(inputString);
-			if(Character.isDigit(this.specifier))
-				this.setStartSquare(new Square(Character.getNumericValue(this.specifier)));
-			else
-				this.setStartSquare(new Square(specifier));
+			this.setStartSquare(Square.ofSpecifier(specifier));
 		}
 		catch(IndexOutOfBoundsException | IllegalStateException e) {
-			this.setStartSquare(new Square('\u0000'));
+			this.setStartSquare(Square.of(0, 0));
 		}
 		// Sets piece type
 		this.pieceType = interpretPieceType(inputString);
@@ -1007,9 +998,7 @@ public class Move {
 	}
 
 	public void setTargetX(char targetX) {
-		if(squaresByReference)
-			this.targetSquare = new Square(this.targetSquare);
-		this.targetSquare.setFile(targetX);
+		this.targetSquare = Square.of(targetX, this.targetSquare.getRank());
 	}
 
 	public int getTargetY() {
@@ -1017,9 +1006,7 @@ public class Move {
 	}
 
 	public void setTargetY(int targetY) {
-		if(squaresByReference)
-			this.targetSquare = new Square(this.targetSquare);
-		this.targetSquare.setRank(targetY);
+		this.targetSquare = Square.of(this.targetSquare.getX(), targetY);
 	}
 
 	public char getStartX() {
@@ -1032,9 +1019,7 @@ public class Move {
 	}
 
 	public void setStartX(char startX) {
-		if(squaresByReference)
-			this.startSquare = new Square(this.startSquare);
-		this.startSquare.setFile(startX);
+		this.startSquare = Square.of(startX, this.getStartY());
 	}
 
 	public int getStartY() {
@@ -1047,10 +1032,7 @@ public class Move {
 	}
 
 	public void setStartY(int startY) {
-		if(squaresByReference)
-			this.startSquare = new Square(this.startSquare);
-		this.startSquare.setRank(startY);
-		
+		this.startSquare = Square.of((this.startSquare == null) ? 0 : this.startSquare.getX(), startY);
 	}
 
 	public char getPieceType() {
@@ -1166,7 +1148,7 @@ public class Move {
 	}
 	
 	public void setTargetSquare(Square targetSquare) {
-		this.targetSquare = new Square(targetSquare);
+		this.targetSquare = targetSquare;
 	}
 	
 	public Square getStartSquare() {
@@ -1174,7 +1156,7 @@ public class Move {
 	}
 	
 	public void setStartSquare(Square startSquare) {
-		this.startSquare = new Square(startSquare);
+		this.startSquare = startSquare;
 	}
 	
 	public int getNotationType() {
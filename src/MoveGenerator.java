@@ -0,0 +1,300 @@
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Generates the legal moves of a position without trying any of them out.
+ * The pieces giving check and the pieces pinned to their king are found once per call,
+ * and every candidate move is masked against them:
+ * 1. In double check, only the king can move.
+ * 2. In single check, other pieces may only capture the checker or block the check.
+ * 3. A pinned piece may only move along the line between its king and the pinner.
+ * 4. The king may only step to squares that are not attacked once it has left its square.
+ * En passant gets one extra test, since taking the pawn clears two squares on the same rank.
+ * Moves are written as packed ints into a MoveList, so generating them allocates nothing.
+ */
+public final class MoveGenerator {
+
+	private MoveGenerator() {
+
+	}
+
+	/**
+	 * Fills a move list with every legal move for the side to move.
+	 * The list is cleared first.
+	 *
+	 * @param pos The current position.
+	 * @param list The list to fill, which is left empty if the game is over.
+	 */
+	public static void generate(Position pos, MoveList list) {
+		list.clear();
+		int us = pos.getSideToMove();
+		if(us != Piece.BLANK)
+			generate(pos, us, pos.getPiecesOfColor(us), Bitboard.FULL, list);
+	}
+
+	/**
+	 * Fills a move list with the legal captures and promotions for the side to move,
+	 * which are the moves a quiescence search looks at. If the side to move is in check,
+	 * every legal move is generated instead, since all of them are needed to tell
+	 * whether it is checkmate.
+	 * The list is cleared first.
+	 *
+	 * @param pos The current position.
+	 * @param list The list to fill, which is left empty if the game is over.
+	 */
+	public static void generateNoisy(Position pos, MoveList list) {
+		list.clear();
+		int us = pos.getSideToMove();
+		if(us != Piece.BLANK)
+			generate(pos, us, pos.getPiecesOfColor(us), Bitboard.EMPTY, list);
+	}
+
+	/**
+	 * Finds every legal move for the side to move.
+	 *
+	 * @param pos The current position.
+	 * @return A list of all legal moves, which is empty if the game is over.
+	 */
+	public static List<Move> getLegalMoves(Position pos) {
+		MoveList list = new MoveList();
+		generate(pos, list);
+		return toMoves(list, pos);
+	}
+
+	/**
+	 * Finds every legal move of a single piece, as if its side were to move.
+	 * Castling and en passant are only included if it is actually that side's turn.
+	 *
+	 * @param pos The current position.
+	 * @param p The piece whose moves are wanted.
+	 * @return A list of the legal moves of that piece.
+	 */
+	public static List<Move> getLegalMoves(Position pos, Piece p) {
+		MoveList list = new MoveList();
+		generate(pos, p.getColor(), 1L << Bitboard.index(p.getCurrentSquare()), Bitboard.FULL, list);
+		return toMoves(list, pos);
+	}
+
+	/**
+	 * Makes Move objects out of a list of packed moves.
+	 *
+	 * @param list The packed moves.
+	 * @param pos The position they are played in.
+	 * @return A list of Move objects.
+	 */
+	private static List<Move> toMoves(MoveList list, Position pos) {
+		List<Move> moves = new LinkedList<Move>();
+		for(int i = 0; i < list.size(); i++) {
+			moves.add(PackedMove.toMove(list.get(i), pos));
+		}
+		return moves;
+	}
+
+	/**
+	 * Generates the legal moves of the pieces of one side standing on a set of squares.
+	 *
+	 * @param pos The current position.
+	 * @param us The color of the moving side.
+	 * @param from The squares of the pieces to generate moves for.
+	 * @param quiet The empty squares pieces may move to, other than promotion squares.
+	 * Every square gives every move, and no square gives only captures and promotions.
+	 * This is ignored when the king is in check.
+	 * @param list The list to add the moves to.
+	 */
+	private static void generate(Position pos, int us, long from, long quiet, MoveList list) {
+		int them = (us == Piece.WHITE) ? Piece.BLACK : Piece.WHITE;
+		// Black piece types are always one more than the matching white type
+		int offset = (us == Piece.WHITE) ? 0 : 1;
+		int theirOffset = 1 - offset;
+		long ours = pos.getPiecesOfColor(us);
+		long theirs = pos.getPiecesOfColor(them);
+		long occupied = ours | theirs;
+		long kingBB = pos.getBitboard(Piece.WHITE_KING + offset);
+		if(kingBB == 0)
+			throw new PieceTypeException(((us == Piece.WHITE) ? "White" : "Black") + " king not found.");
+		int king = Bitboard.first(kingBB);
+		boolean onMove = pos.sideToMoveIs(us);
+		long checkers = pos.getAttackers(king, them, occupied);
+		if(checkers != 0)
+			quiet = Bitboard.FULL;
+		from &= ours;
+		// King moves, looking past the king so it can't step back along a checking line
+		if((from & kingBB) != 0) {
+			long withoutKing = occupied & ~kingBB;
+			long targets = Bitboard.kingAttacksFrom(king) & ~ours & (theirs | quiet);
+			for(; targets != 0; targets &= targets - 1) {
+				int to = Bitboard.first(targets);
+				if(!pos.isAttackedBy(to, them, withoutKing))
+					list.add(PackedMove.make(king, to, (theirs & (1L << to)) != 0));
+			}
+			if(checkers == 0 && onMove && quiet == Bitboard.FULL)
+				addCastlingMoves(list, pos, us);
+		}
+		// Only the king can get out of double check
+		if(Bitboard.count(checkers) > 1)
+			return;
+		long checkMask = Bitboard.FULL;
+		if(checkers != 0)
+			checkMask = checkers | Bitboard.between(king, Bitboard.first(checkers));
+		long theirQueens = pos.getBitboard(Piece.WHITE_QUEEN + theirOffset);
+		long theirLines = pos.getBitboard(Piece.WHITE_ROOK + theirOffset) | theirQueens;
+		long theirDiagonals = pos.getBitboard(Piece.WHITE_BISHOP + theirOffset) | theirQueens;
+		// A piece is pinned if it is the only thing between the king and an enemy slider
+		long pinned = Bitboard.EMPTY;
+		long snipers = (Bitboard.rookAttacks(king, theirs) & theirLines)
+				| (Bitboard.bishopAttacks(king, theirs) & theirDiagonals);
+		for(; snipers != 0; snipers &= snipers - 1) {
+			long blockers = Bitboard.between(king, Bitboard.first(snipers)) & occupied;
+			if((blockers & (blockers - 1)) == 0 && (blockers & ours) != 0)
+				pinned |= blockers;
+		}
+		long allowed = checkMask & ~ours;
+		for(long bb = from & pos.getBitboard(Piece.WHITE_PAWN + offset); bb != 0; bb &= bb - 1) {
+			int sq = Bitboard.first(bb);
+			addPawnMoves(list, sq, us, pinMask(pinned, king, sq, allowed), occupied, theirs, quiet);
+		}
+		allowed &= theirs | quiet;
+		if(onMove && pos.isEnPassantTurn())
+			addEnPassant(list, pos, us, from & pos.getBitboard(Piece.WHITE_PAWN + offset), king,
+					checkers, checkMask, occupied, theirLines, theirDiagonals);
+		// A pinned knight can never stay on the line it is pinned along
+		for(long bb = from & pos.getBitboard(Piece.WHITE_KNIGHT + offset) & ~pinned; bb != 0; bb &= bb - 1) {
+			int sq = Bitboard.first(bb);
+			addMoves(list, sq, Bitboard.knightAttacksFrom(sq) & allowed, theirs);
+		}
+		long queens = pos.getBitboard(Piece.WHITE_QUEEN + offset);
+		for(long bb = from & (pos.getBitboard(Piece.WHITE_BISHOP + offset) | queens); bb != 0; bb &= bb - 1) {
+			int sq = Bitboard.first(bb);
+			addMoves(list, sq, Bitboard.bishopAttacks(sq, occupied) & pinMask(pinned, king, sq, allowed), theirs);
+		}
+		for(long bb = from & (pos.getBitboard(Piece.WHITE_ROOK + offset) | queens); bb != 0; bb &= bb - 1) {
+			int sq = Bitboard.first(bb);
+			addMoves(list, sq, Bitboard.rookAttacks(sq, occupied) & pinMask(pinned, king, sq, allowed), theirs);
+		}
+	}
+
+	/**
+	 * Narrows down the squares a piece may move to if it is pinned.
+	 *
+	 * @param pinned Every pinned piece.
+	 * @param king The bit index of the king.
+	 * @param sq The bit index of the piece.
+	 * @param allowed The squares the piece may move to if it isn't pinned.
+	 * @return The squares the piece may move to.
+	 */
+	private static long pinMask(long pinned, int king, int sq, long allowed) {
+		if((pinned & (1L << sq)) != 0)
+			return allowed & Bitboard.line(king, sq);
+		return allowed;
+	}
+
+	/**
+	 * Adds a move from one square to each of a set of target squares.
+	 *
+	 * @param list The list to add to.
+	 * @param from The bit index of the moving piece.
+	 * @param targets The squares it can move to.
+	 * @param theirs The squares holding enemy pieces.
+	 */
+	private static void addMoves(MoveList list, int from, long targets, long theirs) {
+		for(; targets != 0; targets &= targets - 1) {
+			int to = Bitboard.first(targets);
+			list.add(PackedMove.make(from, to, (theirs & (1L << to)) != 0));
+		}
+	}
+
+	/**
+	 * Adds the pushes and ordinary captures of a pawn, with all four promotions
+	 * for a pawn reaching the last rank.
+	 *
+	 * @param list The list to add to.
+	 * @param sq The bit index of the pawn.
+	 * @param us The color of the pawn.
+	 * @param allowed The squares the pawn may land on, given checks and pins.
+	 * @param occupied Every occupied square.
+	 * @param theirs The squares holding enemy pieces.
+	 * @param quiet The squares the pawn may be pushed to, other than promotion squares.
+	 */
+	private static void addPawnMoves(MoveList list, int sq, int us, long allowed, long occupied, long theirs,
+			long quiet) {
+		long b = 1L << sq;
+		long single;
+		long twice;
+		if(us == Piece.WHITE) {
+			single = (b << 8) & ~occupied;
+			twice = ((single & Bitboard.RANK_3) << 8) & ~occupied;
+		}
+		else {
+			single = (b >>> 8) & ~occupied;
+			twice = ((single & Bitboard.RANK_6) >>> 8) & ~occupied;
+		}
+		single &= quiet | Bitboard.RANK_1 | Bitboard.RANK_8;
+		if((twice & allowed & quiet) != 0)
+			list.add(PackedMove.make(sq, Bitboard.first(twice), PackedMove.NO_PROMOTION,
+					PackedMove.DOUBLE_PUSH, false));
+		long targets = (single | (Bitboard.pawnAttacksFrom(sq, us) & theirs)) & allowed;
+		for(; targets != 0; targets &= targets - 1) {
+			int to = Bitboard.first(targets);
+			boolean capture = (theirs & (1L << to)) != 0;
+			if(((1L << to) & (Bitboard.RANK_1 | Bitboard.RANK_8)) != 0) {
+				for(int promotion = PackedMove.PROMOTE_QUEEN; promotion >= PackedMove.PROMOTE_KNIGHT; promotion--) {
+					list.add(PackedMove.make(sq, to, promotion, PackedMove.NORMAL, capture));
+				}
+			}
+			else
+				list.add(PackedMove.make(sq, to, capture));
+		}
+	}
+
+	/**
+	 * Adds the en passant captures that can be made. Rather than go through the
+	 * pin masks, the board is looked at as it would be after the capture, since taking
+	 * the pawn can uncover an attack along the rank that neither pawn was pinned on.
+	 *
+	 * @param list The list to add to.
+	 * @param pos The current position.
+	 * @param us The color of the capturing side.
+	 * @param pawns The pawns that may capture.
+	 * @param king The bit index of the king of the capturing side.
+	 * @param checkers The pieces giving check.
+	 * @param checkMask The squares that resolve the check, or every square if there is none.
+	 * @param occupied Every occupied square.
+	 * @param theirLines The enemy rooks and queens.
+	 * @param theirDiagonals The enemy bishops and queens.
+	 */
+	private static void addEnPassant(MoveList list, Position pos, int us, long pawns, int king,
+			long checkers, long checkMask, long occupied, long theirLines, long theirDiagonals) {
+		int ep = Bitboard.index(pos.getEnPassantSquare());
+		long epBB = 1L << ep;
+		long capturedBB = (us == Piece.WHITE) ? (epBB >>> 8) : (epBB << 8);
+		// Either the pawn being taken is the checker, or the capture blocks the check
+		if(checkers != 0 && (checkers & capturedBB) == 0 && (checkMask & epBB) == 0)
+			return;
+		// The pawns that could capture are the ones a pawn of the other color on the square would attack
+		long capturers = pawns & Bitboard.pawnAttacksFrom(ep, (us == Piece.WHITE) ? Piece.BLACK : Piece.WHITE);
+		for(; capturers != 0; capturers &= capturers - 1) {
+			int sq = Bitboard.first(capturers);
+			long after = (occupied & ~(1L << sq) & ~capturedBB) | epBB;
+			if((Bitboard.rookAttacks(king, after) & theirLines) == 0
+					&& (Bitboard.bishopAttacks(king, after) & theirDiagonals) == 0)
+				list.add(PackedMove.make(sq, ep, PackedMove.NO_PROMOTION, PackedMove.EN_PASSANT, true));
+		}
+	}
+
+	/**
+	 * Adds the castling moves that are currently legal for one side.
+	 *
+	 * @param list The list to add to.
+	 * @param pos The current position.
+	 * @param us The color of the castling side.
+	 */
+	private static void addCastlingMoves(MoveList list, Position pos, int us) {
+		boolean kingside = (us == Piece.WHITE) ? pos.whiteCanCastleKingside() : pos.blackCanCastleKingside();
+		boolean queenside = (us == Piece.WHITE) ? pos.whiteCanCastleQueenside() : pos.blackCanCastleQueenside();
+		if(kingside)
+			list.add(pos.getCastlingMove(Move.KINGSIDE_CASTLE));
+		if(queenside)
+			list.add(pos.getCastlingMove(Move.QUEENSIDE_CASTLE));
+	}
+
+}
@@ -0,0 +1,108 @@
+/**
+ * A list of packed moves backed by a fixed array, meant to be allocated once and
+ * reused, such as one list for each ply of a search.
+ * Each move has an ordering score kept in a parallel array, which the search fills in
+ * and uses to pick the most promising move still to be tried.
+ */
+public class MoveList {
+
+	/**
+	 * More than the greatest number of legal moves in any chess position, which is 218.
+	 */
+	final public static int MAX_MOVES = 256;
+
+	private int[] moves = new int[MAX_MOVES];
+	private int[] scores = new int[MAX_MOVES];
+	private int size = 0;
+
+	/**
+	 * Empties the list so it can be filled again.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Adds a packed move to the end of the list.
+	 *
+	 * @param move The packed move.
+	 */
+	public void add(int move) {
+		moves[size++] = move;
+	}
+
+	/**
+	 * Returns the packed move at a given position.
+	 *
+	 * @param i The position in the list.
+	 * @return The packed move.
+	 */
+	public int get(int i) {
+		return moves[i];
+	}
+
+	public int getScore(int i) {
+		return scores[i];
+	}
+
+	public void setScore(int i, int score) {
+		scores[i] = score;
+	}
+
+	/**
+	 * Swaps two moves in the list, along with their scores.
+	 *
+	 * @param i The position of one move.
+	 * @param j The position of the other move.
+	 */
+	public void swap(int i, int j) {
+		int temp = moves[i];
+		moves[i] = moves[j];
+		moves[j] = temp;
+		temp = scores[i];
+		scores[i] = scores[j];
+		scores[j] = temp;
+	}
+
+	/**
+	 * Moves the move with the highest score from a given position onward into that
+	 * position. Picking one move at a time like this costs less than sorting the whole
+	 * list when a cutoff comes after the first few moves.
+	 *
+	 * @param from The position to fill. Moves before it are left alone.
+	 * @return The move now at that position.
+	 */
+	public int pickBest(int from) {
+		int best = from;
+		for(int i = from + 1; i < size; i++) {
+			if(scores[i] > scores[best])
+				best = i;
+		}
+		if(best != from)
+			swap(from, best);
+		return moves[from];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Checks whether the list holds a given move.
+	 *
+	 * @param move The packed move.
+	 * @return True if and only if the move is in the list.
+	 */
+	public boolean contains(int move) {
+		for(int i = 0; i < size; i++) {
+			if(moves[i] == move)
+				return true;
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * An efficiently updatable neural network that evaluates a position, as an optional
+ * replacement for the hand-written terms of the Evaluation class.
+ * The network has 768 inputs, one for each piece type of each color on each square,
+ * seen from both sides. They feed a hidden layer of any size, whose values for each side
+ * make up an accumulator. An accumulator is only added to or subtracted from as pieces
+ * come and go, so a move costs a few additions rather than a pass over every input.
+ * Both accumulators are clipped to between 0 and QA and feed one output, with the
+ * side to move's half first.
+ * Weights are quantized: the hidden layer by QA and the output by QB.
+ * The weights file holds little-endian 16-bit integers in this order:
+ * the input weights, input by input, with the hidden layer size of each;
+ * the hidden biases; the output weights, the side to move's half first; the output bias.
+ * The size of the hidden layer is worked out from the length of the file, and any
+ * padding at the end is ignored.
+ */
+public class Network {
+
+	/**
+	 * The number of inputs: six kinds of piece, two colors, 64 squares.
+	 */
+	final public static int INPUTS = 768;
+	final public static int QA = 255;
+	final public static int QB = 64;
+	/**
+	 * What the raw output is multiplied by to give centipawns.
+	 */
+	final public static int SCALE = 400;
+
+	/**
+	 * The input each piece type feeds on each square, seen by white and by black.
+	 * Inputs number the kinds as pawn, knight, bishop, rook, queen and king, with the
+	 * pieces of the side looking coming first.
+	 */
+	private static final int[][][] FEATURES = new int[2][Piece.BLACK_KING + 1][64];
+
+	static {
+		int[] kinds = new int[Piece.BLACK_KING + 1];
+		kinds[Piece.WHITE_PAWN] = kinds[Piece.BLACK_PAWN] = 0;
+		kinds[Piece.WHITE_KNIGHT] = kinds[Piece.BLACK_KNIGHT] = 1;
+		kinds[Piece.WHITE_BISHOP] = kinds[Piece.BLACK_BISHOP] = 2;
+		kinds[Piece.WHITE_ROOK] = kinds[Piece.BLACK_ROOK] = 3;
+		kinds[Piece.WHITE_QUEEN] = kinds[Piece.BLACK_QUEEN] = 4;
+		kinds[Piece.WHITE_KING] = kinds[Piece.BLACK_KING] = 5;
+		for(int type = Piece.WHITE_PAWN; type <= Piece.BLACK_KING; type++) {
+			// Each black piece type comes right after the white one
+			boolean white = (type - Piece.WHITE_PAWN) % 2 == 0;
+			for(int sq = 0; sq < 64; sq++) {
+				FEATURES[0][type][sq] = (white ? 0 : 384) + kinds[type] * 64 + sq;
+				FEATURES[1][type][sq] = (white ? 384 : 0) + kinds[type] * 64 + (sq ^ 56);
+			}
+		}
+	}
+
+	private final int hiddenSize;
+	private final short[] inputWeights;
+	private final short[] hiddenBiases;
+	private final short[] outputWeights;
+	private final int outputBias;
+
+	private Network(int hiddenSize, ByteBuffer data) {
+		this.hiddenSize = hiddenSize;
+		inputWeights = new short[INPUTS * hiddenSize];
+		hiddenBiases = new short[hiddenSize];
+		outputWeights = new short[2 * hiddenSize];
+		data.asShortBuffer().get(inputWeights);
+		data.position(data.position() + 2 * inputWeights.length);
+		data.asShortBuffer().get(hiddenBiases);
+		data.position(data.position() + 2 * hiddenBiases.length);
+		data.asShortBuffer().get(outputWeights);
+		data.position(data.position() + 2 * outputWeights.length);
+		outputBias = data.getShort();
+	}
+
+	/**
+	 * Loads a network from a weights file.
+	 *
+	 * @param path The path of the file.
+	 * @return The network.
+	 * @throws IOException If the file can't be read or is too short to hold a network.
+	 */
+	public static Network load(String path) throws IOException {
+		ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(Paths.get(path))).order(ByteOrder.LITTLE_ENDIAN);
+		// Each hidden value has its input weights, a bias and two output weights
+		int hiddenSize = (data.remaining() / 2 - 1) / (INPUTS + 3);
+		if(hiddenSize < 1)
+			throw new IOException("Not a network file: " + path);
+		return new Network(hiddenSize, data);
+	}
+
+	public int getHiddenSize() {
+		return hiddenSize;
+	}
+
+	/**
+	 * Sets both halves of an accumulator to the hidden biases.
+	 *
+	 * @param white The half seen by white.
+	 * @param black The half seen by black.
+	 */
+	void reset(int[] white, int[] black) {
+		for(int i = 0; i < hiddenSize; i++) {
+			white[i] = hiddenBiases[i];
+			black[i] = hiddenBiases[i];
+		}
+	}
+
+	/**
+	 * Adds or takes away the inputs of a piece in both halves of an accumulator.
+	 *
+	 * @param white The half seen by white.
+	 * @param black The half seen by black.
+	 * @param type The type of piece, as defined in the Piece class.
+	 * @param index The bit index of its square.
+	 * @param sign 1 to add the piece, -1 to take it away.
+	 */
+	void update(int[] white, int[] black, int type, int index, int sign) {
+		int w = FEATURES[0][type][index] * hiddenSize;
+		int b = FEATURES[1][type][index] * hiddenSize;
+		// Plain loops over arrays, which the JIT compiler turns into vector instructions
+		for(int i = 0; i < hiddenSize; i++) {
+			white[i] += sign * inputWeights[w + i];
+		}
+		for(int i = 0; i < hiddenSize; i++) {
+			black[i] += sign * inputWeights[b + i];
+		}
+	}
+
+	/**
+	 * Works out the output of the network from an accumulator.
+	 *
+	 * @param us The half seen by the side to move.
+	 * @param them The half seen by the other side.
+	 * @return The score in centipawns, from the point of view of the side to move.
+	 */
+	int evaluate(int[] us, int[] them) {
+		// A long, since a large hidden layer with large weights overflows an int
+		long sum = 0;
+		for(int i = 0; i < hiddenSize; i++) {
+			sum += Math.min(Math.max(us[i], 0), QA) * outputWeights[i];
+		}
+		for(int i = 0; i < hiddenSize; i++) {
+			sum += Math.min(Math.max(them[i], 0), QA) * outputWeights[hiddenSize + i];
+		}
+		return (int) ((sum + outputBias) * SCALE / (QA * QB));
+	}
+
+}
@@ -0,0 +1,176 @@
+/**
+ * Static helpers for moves packed into a single int, which is how moves are
+ * passed around inside move generation and search.
+ * Move objects are only made from these when a move has to be shown or handed
+ * to the Game class.
+ * The bits are laid out as follows:
+ * 0-5: the bit index of the starting square.
+ * 6-11: the bit index of the target square. For castling, this is the square of the rook.
+ * 12-14: the piece a pawn promotes to, or NO_PROMOTION.
+ * 15-17: the kind of move, one of the kind constants.
+ * 18: set if the move captures a piece.
+ */
+public final class PackedMove {
+
+	/**
+	 * Never a legal move, since the start and target squares are the same.
+	 */
+	final public static int NONE = 0;
+
+	final public static int NO_PROMOTION = 0;
+	final public static int PROMOTE_KNIGHT = 1;
+	final public static int PROMOTE_BISHOP = 2;
+	final public static int PROMOTE_ROOK = 3;
+	final public static int PROMOTE_QUEEN = 4;
+
+	final public static int NORMAL = 0;
+	final public static int DOUBLE_PUSH = 1;
+	final public static int EN_PASSANT = 2;
+	final public static int KINGSIDE_CASTLE = 3;
+	final public static int QUEENSIDE_CASTLE = 4;
+
+	private static final int CAPTURE_BIT = 1 << 18;
+
+	private PackedMove() {
+
+	}
+
+	/**
+	 * Packs a move into an int.
+	 *
+	 * @param from The bit index of the starting square.
+	 * @param to The bit index of the target square, or of the rook when castling.
+	 * @param promotion The piece a pawn promotes to, or NO_PROMOTION.
+	 * @param kind The kind of move, such as NORMAL or EN_PASSANT.
+	 * @param capture Whether the move captures a piece.
+	 * @return The packed move.
+	 */
+	public static int make(int from, int to, int promotion, int kind, boolean capture) {
+		return from | (to << 6) | (promotion << 12) | (kind << 15) | (capture ? CAPTURE_BIT : 0);
+	}
+
+	/**
+	 * Packs an ordinary move or capture into an int.
+	 *
+	 * @param from The bit index of the starting square.
+	 * @param to The bit index of the target square.
+	 * @param capture Whether the move captures a piece.
+	 * @return The packed move.
+	 */
+	public static int make(int from, int to, boolean capture) {
+		return from | (to << 6) | (capture ? CAPTURE_BIT : 0);
+	}
+
+	public static int getFrom(int move) {
+		return move & 0x3F;
+	}
+
+	public static int getTo(int move) {
+		return (move >>> 6) & 0x3F;
+	}
+
+	public static int getPromotion(int move) {
+		return (move >>> 12) & 0x7;
+	}
+
+	public static int getKind(int move) {
+		return (move >>> 15) & 0x7;
+	}
+
+	public static boolean isCapture(int move) {
+		return (move & CAPTURE_BIT) != 0;
+	}
+
+	public static boolean isPromotion(int move) {
+		return getPromotion(move) != NO_PROMOTION;
+	}
+
+	public static boolean isCastle(int move) {
+		int kind = getKind(move);
+		return kind == KINGSIDE_CASTLE || kind == QUEENSIDE_CASTLE;
+	}
+
+	/**
+	 * Converts the identifier of a piece into a promotion code. Anything that isn't
+	 * a knight, bishop or rook, including 0, becomes a queen.
+	 *
+	 * @param promotingTo The identifier of the piece, in either case.
+	 * @return The promotion code.
+	 */
+	public static int promotionFromChar(char promotingTo) {
+		switch(Character.toUpperCase(promotingTo)) {
+			case 'N':
+				return PROMOTE_KNIGHT;
+			case 'B':
+				return PROMOTE_BISHOP;
+			case 'R':
+				return PROMOTE_ROOK;
+			default:
+				return PROMOTE_QUEEN;
+		}
+	}
+
+	/**
+	 * Converts a promotion code into the upper case identifier of the piece.
+	 *
+	 * @param promotion The promotion code.
+	 * @return The identifier of the piece, or 0 if there is no promotion.
+	 */
+	public static char promotionToChar(int promotion) {
+		switch(promotion) {
+			case PROMOTE_KNIGHT:
+				return 'N';
+			case PROMOTE_BISHOP:
+				return 'B';
+			case PROMOTE_ROOK:
+				return 'R';
+			case PROMOTE_QUEEN:
+				return 'Q';
+			default:
+				return '\u0000';
+		}
+	}
+
+	/**
+	 * Makes a Move object out of a packed move, for showing it or playing it through
+	 * the Game class. This should be called before the move is made.
+	 *
+	 * @param move The packed move.
+	 * @param pos The position the move is played in.
+	 * @return The equivalent Move object.
+	 */
+	public static Move toMove(int move, Position pos) {
+		int kind = getKind(move);
+		if(kind == KINGSIDE_CASTLE)
+			return new Move("castle kingside");
+		if(kind == QUEENSIDE_CASTLE)
+			return new Move("castle queenside");
+		int from = getFrom(move);
+		int to = getTo(move);
+		Piece p = pos.getPieceAt(Bitboard.getX(from), Bitboard.getY(from));
+		Move m = new Move(p.getIdentifier(), p.getCurrentSquare(), Bitboard.getX(to), Bitboard.getY(to));
+		if(isPromotion(move))
+			m.setPromotingTo(promotionToChar(getPromotion(move)));
+		return m;
+	}
+
+	/**
+	 * Returns the move in long algebraic notation without the piece, such as e2e4 or e7e8q.
+	 * Castling is written as the move of the king, such as e1g1.
+	 *
+	 * @param move The packed move.
+	 * @return A string representing the move.
+	 */
+	public static String toString(int move) {
+		int from = getFrom(move);
+		int to = getTo(move);
+		if(isCastle(move))
+			to = Bitboard.index((getKind(move) == KINGSIDE_CASTLE) ? 7 : 3, Bitboard.getY(from));
+		String s = "" + Square.xToFileMap.get(Bitboard.getX(from)) + Bitboard.getY(from)
+				+ Square.xToFileMap.get(Bitboard.getX(to)) + Bitboard.getY(to);
+		if(isPromotion(move))
+			s += Character.toLowerCase(promotionToChar(getPromotion(move)));
+		return s;
+	}
+
+}
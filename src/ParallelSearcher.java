@@ -0,0 +1,145 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches with several threads at once by the lazy SMP scheme. Every thread searches
+ * the same root on its own copy of the position, and they all share one transposition
+ * table and evaluation cache, so what one thread finds saves the others from searching
+ * or evaluating it again.
+ * Helpers start at different depths so that they don't all search the same tree in
+ * step. The main searcher keeps to the time limits, and its move is the one played.
+ */
+public class ParallelSearcher {
+
+	private Searcher main;
+	private Searcher[] helpers;
+	private ExecutorService pool;
+	private TranspositionTable tt;
+	private EvalCache evalCache;
+
+	/**
+	 * Makes a parallel searcher.
+	 *
+	 * @param threads The total number of threads to search with, at least one.
+	 * @param hashMegabytes The size of the shared transposition table in megabytes.
+	 */
+	public ParallelSearcher(int threads, int hashMegabytes) {
+		tt = new TranspositionTable(hashMegabytes);
+		evalCache = new EvalCache(Searcher.EVAL_CACHE_SIZE);
+		main = new Searcher(tt, evalCache);
+		setThreads(threads);
+	}
+
+	/**
+	 * Changes the number of threads. This must not be called during a search.
+	 *
+	 * @param threads The total number of threads to search with, at least one.
+	 */
+	public void setThreads(int threads) {
+		if(pool != null)
+			pool.shutdownNow();
+		helpers = new Searcher[Math.max(0, threads - 1)];
+		for(int i = 0; i < helpers.length; i++) {
+			helpers[i] = new Searcher(tt, evalCache);
+			helpers[i].setHelperId(i + 1);
+		}
+		pool = null;
+		if(helpers.length > 0) {
+			// Daemon threads, so that an idle pool never keeps the program from exiting
+			pool = Executors.newFixedThreadPool(helpers.length, r -> {
+				Thread t = new Thread(r, "Jonfish helper");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+	}
+
+	public int getThreads() {
+		return helpers.length + 1;
+	}
+
+	/**
+	 * Sets the limits of the search, which the main searcher keeps to.
+	 * The helpers search until the main searcher is done.
+	 *
+	 * @param maxDepth The deepest iteration to search.
+	 * @param softTimeLimit The time in milliseconds after which no new iteration starts.
+	 * @param hardTimeLimit The time in milliseconds after which the search stops at once.
+	 * @param nodeLimit The number of nodes the main searcher may visit.
+	 */
+	public void setLimits(int maxDepth, long softTimeLimit, long hardTimeLimit, long nodeLimit) {
+		main.setLimits(maxDepth, softTimeLimit, hardTimeLimit, nodeLimit);
+		for(Searcher h : helpers) {
+			h.setLimits(maxDepth, 0, 0, 0);
+		}
+	}
+
+	/**
+	 * Searches a position on every thread and returns the best move of the main searcher.
+	 * The position is left as it was.
+	 *
+	 * @param pos The position to search.
+	 * @return The best move, or PackedMove.NONE if there are no legal moves.
+	 */
+	public int think(Position pos) {
+		List<Future<?>> running = new ArrayList<Future<?>>();
+		for(Searcher h : helpers) {
+			h.clearStop();
+			Position copy = new Position(pos);
+			running.add(pool.submit(() -> h.think(copy)));
+		}
+		main.clearStop();
+		int best = main.think(pos);
+		for(Searcher h : helpers) {
+			h.stop();
+		}
+		for(Future<?> f : running) {
+			try {
+				f.get();
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			catch(ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the searcher whose results are used, for its score, depth and
+	 * principal variation.
+	 *
+	 * @return The main searcher.
+	 */
+	public Searcher getMainSearcher() {
+		return main;
+	}
+
+	/**
+	 * Returns the number of positions visited by every thread in the last search.
+	 *
+	 * @return The total node count.
+	 */
+	public long getNodes() {
+		long total = main.getNodes();
+		for(Searcher h : helpers) {
+			total += h.getNodes();
+		}
+		return total;
+	}
+
+	public TranspositionTable getTranspositionTable() {
+		return tt;
+	}
+
+	public EvalCache getEvalCache() {
+		return evalCache;
+	}
+
+}
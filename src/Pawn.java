@@ -59,65 +59,7 @@ public class Pawn extends Piece {
 	 */
 	@Override
 	public List<Move> getPossibleMoves(Position pos) {
-		List<Move> possible = new LinkedList<Move>();
-		Square dummySquare = this.getCurrentSquare();
-		int dummyFile = this.getCurrentX();
-		int dummyRank = this.getCurrentY();
-		char id = this.getIdentifier();
-		int color = this.getColor();
-		int rankUpOne = (color == WHITE) ? (dummyRank + 1) : (dummyRank - 1);
-		int rankUpTwo = (color == WHITE) ? (dummyRank + 2) : (dummyRank - 2);
-		// There can only ever be 4 possible moves in any given position:
-		// 1. Moving one square forward
-		if(!pos.isOccupiedAt(dummyFile, rankUpOne))
-			possible.add(new Move(id, dummySquare, dummyFile, rankUpOne));
-		// 2. Moving two squares forward
-		try {
-			possible.add(new Move(id,
-					(findTwoSquaresForward(new Square(dummyFile, rankUpTwo), pos).get(0)).getCurrentSquare(),
-					dummyFile, rankUpTwo));
-		}
-		catch(IndexOutOfBoundsException | IndexOutOfBoardException e) {
-			
-		}
-		// 3. Capturing to the right
-		try {
-			if(pos.canCaptureOn(dummyFile + 1, rankUpOne, this))
-				possible.add(new Move(id, dummySquare, dummyFile + 1, rankUpOne));
-		}
-		catch(IndexOutOfBoundsException | IndexOutOfBoardException e) {
-			
-		}
-		// 4. Capturing to the left
-		try {
-			if(pos.canCaptureOn(dummyFile - 1, rankUpOne, this))
-				possible.add(new Move(id, dummySquare, dummyFile - 1, rankUpOne));
-		}
-		catch(IndexOutOfBoundsException | IndexOutOfBoardException e) {
-			
-		}
-		if(pos.isEnPassantTurn()) {
-			// 3a. Capturing e.p. to the right
-			try {
-				if(pos.getEnPassantSquare().equals(new Square(dummyFile + 1, rankUpOne)))
-					possible.add(new Move(id, dummySquare, dummyFile + 1, rankUpOne));
-			}
-			catch(IndexOutOfBoardException | NullPointerException e) {
-				
-			}
-			// 4a. Capturing e.p. to the left
-			try {
-				if(pos.getEnPassantSquare().equals(new Square(dummyFile - 1, rankUpOne)))
-					possible.add(new Move(id, dummySquare, dummyFile - 1, rankUpOne));
-			}
-			catch(IndexOutOfBoardException | NullPointerException e) {
-				
-			}
-		}
-		// An inelegant fix to account for checks, but perhaps a necessary one
-		// The alternative is to go back and do this in every single method
-		possible.removeIf(m -> pos.isStillCheckAfterMove(m));
-		return possible;
+		return MoveGenerator.getLegalMoves(pos, this);
 	}
 	
 	/**
@@ -210,7 +152,7 @@ public class Pawn extends Piece {
 	 * @return If the square is under attack from a diagonal.
 	 */
 	public static boolean isAttacking(Square sq, Position pos) {
-		return Pawn.findAttacking(sq, pos).size() > 0;
+		return findAttackingBitboard(sq, pos) != 0;
 	}
 
 	/**
@@ -221,54 +163,25 @@ public class Pawn extends Piece {
 	 * @return All possible pawns of the correct color that can capture on this square.
 	 */
 	public static LinkedList<Piece> findAttacking(Square sq, Position pos) {
-		LinkedList<Piece> possible = new LinkedList<Piece>();
-		int movingColor = pos.getSideToMove();
-		int dummyColor = pos.getColorAt(sq);
-		int dummyFile = sq.getX();
-		int dummyRank = sq.getY();
-		int checkingRank;
-		if(dummyColor == movingColor)
-			return possible;
-		if(movingColor == WHITE)
-			checkingRank = dummyRank - 1;
-		else if(movingColor == BLACK)
-			checkingRank = dummyRank + 1;
-		else
-			return possible;
-		Piece piece1 = checkSquareWithEnPassant(dummyFile + 1, checkingRank, pos);
-		Piece piece2 = checkSquareWithEnPassant(dummyFile - 1, checkingRank, pos);
-		if(piece1 != null && piece1.getColor() == movingColor)
-			possible.add(piece1);
-		if(piece2 != null && piece2.getColor() == movingColor)
-			possible.add(piece2);
-		return possible;
+		return pos.getPiecesOn(findAttackingBitboard(sq, pos));
 	}
 	
 	/**
-	 * Finds a pawn piece at the specified square, or a square that can be
-	 * taken en passant.
-	 * Returns null if the piece at that square is not a pawn.
+	 * Finds the squares of all pawns of the current side to move that can attack a given square.
+	 * These are the squares that a pawn of the other color on sq would attack.
 	 * 
-	 * @param file The file of the square.
-	 * @param rank The rank of the square.
+	 * @param sq The square to be tested.
 	 * @param pos The current position.
-	 * @return A pawn object, or null if there is no pawn at that square.
+	 * @return A bitboard of the pawns of the correct color that can capture on this square.
 	 */
-	private static Piece checkSquareWithEnPassant(int file, int rank, Position pos) {
-		try {
-			Piece pl = pos.getPieceAt(file, rank);
-			// TODO this part is weird
-			if((pl.getColor() == pos.getSideToMove() && pl.isPawn())
-					// Is a pawn or the en passant square
-					|| (pos.isEnPassantTurn()
-							&& (pl.isPawn() || pl.getCurrentSquare().equals(pos.getEnPassantSquare()))))
-				return pl;
-			else
-				return null;
-		}
-		catch(IndexOutOfBoardException e) {
-			return null;
-		}
+	public static long findAttackingBitboard(Square sq, Position pos) {
+		int movingColor = pos.getSideToMove();
+		if(movingColor == BLANK || pos.getColorAt(sq) == movingColor)
+			return Bitboard.EMPTY;
+		if(movingColor == WHITE)
+			return Bitboard.pawnAttacksFrom(Bitboard.index(sq), BLACK) & pos.getBitboard(WHITE_PAWN);
+		else
+			return Bitboard.pawnAttacksFrom(Bitboard.index(sq), WHITE) & pos.getBitboard(BLACK_PAWN);
 	}
 	
 	/**
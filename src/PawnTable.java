@@ -0,0 +1,120 @@
+/**
+ * A fixed-size table of pawn structure evaluations, indexed by the pawn key of a
+ * position. The pawns change far less often than the rest of the board, so most
+ * positions in a search find their pawn structure already scored here.
+ * Each searcher has its own table, so entries are plain objects that are filled in
+ * place and never need guarding against another thread.
+ */
+public class PawnTable {
+
+	/**
+	 * The scores of one pawn structure, and the passed pawns of both sides.
+	 */
+	public static class Entry {
+
+		private long key;
+		private int middlegame, endgame;
+		private long passed;
+
+		public long getKey() {
+			return key;
+		}
+
+		/**
+		 * Returns the middlegame score of the pawn structure.
+		 *
+		 * @return The score in centipawns, positive when white's structure is better.
+		 */
+		public int getMiddlegame() {
+			return middlegame;
+		}
+
+		/**
+		 * Returns the endgame score of the pawn structure.
+		 *
+		 * @return The score in centipawns, positive when white's structure is better.
+		 */
+		public int getEndgame() {
+			return endgame;
+		}
+
+		/**
+		 * Returns the passed pawns of both sides. The pawns of each side can be picked out
+		 * with its pawn bitboard.
+		 *
+		 * @return A bitboard of every passed pawn.
+		 */
+		public long getPassed() {
+			return passed;
+		}
+
+		/**
+		 * Fills in the entry for a pawn structure.
+		 *
+		 * @param key The pawn key of the structure.
+		 * @param middlegame The middlegame score.
+		 * @param endgame The endgame score.
+		 * @param passed The passed pawns of both sides.
+		 */
+		public void set(long key, int middlegame, int endgame, long passed) {
+			this.key = key;
+			this.middlegame = middlegame;
+			this.endgame = endgame;
+			this.passed = passed;
+		}
+
+	}
+
+	private Entry[] entries;
+	private int mask;
+	/**
+	 * Scratch space for scoring a structure that isn't in the table, so a miss
+	 * doesn't allocate.
+	 */
+	private final int[] counts = new int[Evaluation.PAWN_TERMS];
+
+	/**
+	 * Makes a table with a number of entries, rounded down to a power of two.
+	 *
+	 * @param size The number of entries.
+	 */
+	public PawnTable(int size) {
+		entries = new Entry[Integer.highestOneBit(Math.max(1, size))];
+		for(int i = 0; i < entries.length; i++) {
+			entries[i] = new Entry();
+		}
+		mask = entries.length - 1;
+	}
+
+	/**
+	 * Returns the entry a pawn key belongs in. The entry holds that structure if
+	 * its key matches, and is free to be overwritten otherwise.
+	 * A new entry has key 0 and scores of 0, which is right for a board with no pawns,
+	 * so it needs no separate empty marker.
+	 *
+	 * @param key The pawn key of the position.
+	 * @return The entry for the key.
+	 */
+	public Entry get(long key) {
+		return entries[(int) key & mask];
+	}
+
+	/**
+	 * Returns the scratch counts used while scoring a pawn structure for this table.
+	 *
+	 * @return An array of Evaluation.PAWN_TERMS counts.
+	 */
+	int[] getCounts() {
+		return counts;
+	}
+
+	/**
+	 * Empties the table.
+	 */
+	public void clear() {
+		for(Entry e : entries) {
+			e.set(0, 0, 0, 0);
+		}
+	}
+
+}
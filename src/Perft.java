@@ -0,0 +1,254 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the move tree to a given depth, which is the standard way
+ * to check a move generator against known results and to measure how fast it runs.
+ * Divide breaks the count down by root move, so a wrong total can be narrowed down
+ * to the move that causes it.
+ * Parallel perft splits the moves near the root across a fork/join pool, with every
+ * thread sharing one PerftTable.
+ *
+ * Usage: java Perft [depth] [FEN] [divide | parallel] [threads] [hash MB]
+ */
+public class Perft {
+
+	/**
+	 * The deepest perft this class can run, which is also the number of move lists kept.
+	 */
+	final public static int MAX_DEPTH = 32;
+
+	/**
+	 * Subtrees at least this deep are split into tasks by parallel perft.
+	 * Anything shallower is too small to be worth handing to another thread.
+	 */
+	private static final int MIN_SPLIT_DEPTH = 4;
+
+	/**
+	 * Parallel perft only splits this many plies from the root.
+	 */
+	private static final int MAX_SPLIT_PLY = 2;
+
+	/**
+	 * One move list for each ply, reused from node to node.
+	 */
+	private MoveList[] moveLists = new MoveList[MAX_DEPTH];
+
+	/**
+	 * The table of counts already worked out, or null to count everything.
+	 */
+	private PerftTable table;
+
+	public static void main(String[] args) {
+		int depth = 5;
+		String fen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+		String mode = "";
+		int threads = Runtime.getRuntime().availableProcessors();
+		int hashMB = 64;
+		if(args.length > 0)
+			depth = Integer.parseInt(args[0]);
+		if(args.length > 1)
+			fen = args[1];
+		if(args.length > 2)
+			mode = args[2];
+		if(args.length > 3)
+			threads = Integer.parseInt(args[3]);
+		if(args.length > 4)
+			hashMB = Integer.parseInt(args[4]);
+		Position pos = new Position(fen);
+		long start = System.nanoTime();
+		long nodes;
+		if(mode.equalsIgnoreCase("divide"))
+			nodes = new Perft().divide(pos, depth);
+		else if(mode.equalsIgnoreCase("parallel")) {
+			System.out.println("Threads: " + threads + ", hash: " + hashMB + " MB");
+			nodes = parallelPerft(pos, depth, threads, new PerftTable(hashMB));
+		}
+		else
+			nodes = new Perft().perft(pos, depth);
+		long elapsed = System.nanoTime() - start;
+		System.out.println("Nodes searched: " + nodes);
+		System.out.println("Time: " + (elapsed / 1000000) + " ms");
+		System.out.println("Nodes per second: " + nodesPerSecond(nodes, elapsed));
+	}
+
+	/**
+	 * Makes a perft counter that counts every node.
+	 */
+	public Perft() {
+		this(null);
+	}
+
+	/**
+	 * Makes a perft counter that looks up and stores subtree counts in a table.
+	 *
+	 * @param table The table to use, which may be shared with other counters, or null.
+	 */
+	public Perft(PerftTable table) {
+		this.table = table;
+		for(int i = 0; i < MAX_DEPTH; i++) {
+			moveLists[i] = new MoveList();
+		}
+	}
+
+	/**
+	 * Counts the leaf nodes of the move tree below a position.
+	 * The position is left as it was.
+	 *
+	 * @param pos The position to start from.
+	 * @param depth The number of plies to look ahead.
+	 * @return The number of positions reached after exactly depth plies.
+	 */
+	public long perft(Position pos, int depth) {
+		if(depth > MAX_DEPTH)
+			throw new IllegalArgumentException("Perft can go at most " + MAX_DEPTH + " plies deep.");
+		return perft(pos, depth, 0);
+	}
+
+	/**
+	 * Counts the leaf nodes below each legal move of a position and prints each count,
+	 * one move to a line. The position is left as it was.
+	 *
+	 * @param pos The position to start from.
+	 * @param depth The number of plies to look ahead, counting the root move.
+	 * @return The total number of positions reached after exactly depth plies.
+	 */
+	public long divide(Position pos, int depth) {
+		if(depth > MAX_DEPTH)
+			throw new IllegalArgumentException("Perft can go at most " + MAX_DEPTH + " plies deep.");
+		if(depth <= 0)
+			return 1;
+		MoveList moves = moveLists[0];
+		MoveGenerator.generate(pos, moves);
+		long total = 0;
+		for(int i = 0; i < moves.size(); i++) {
+			int m = moves.get(i);
+			pos.makeMove(m);
+			long nodes = perft(pos, depth - 1, 1);
+			pos.unmakeMove();
+			System.out.println(PackedMove.toString(m) + ": " + nodes);
+			total += nodes;
+		}
+		System.out.println("Moves: " + moves.size());
+		return total;
+	}
+
+	/**
+	 * Counts the leaf nodes of the move tree below a position on several threads.
+	 * The moves near the root are split into fork/join tasks, each working on its own
+	 * copy of the position. The position passed in is never changed.
+	 *
+	 * @param pos The position to start from.
+	 * @param depth The number of plies to look ahead.
+	 * @param threads The number of worker threads.
+	 * @param table The table shared by every thread, or null to count everything.
+	 * @return The number of positions reached after exactly depth plies.
+	 */
+	public static long parallelPerft(Position pos, int depth, int threads, PerftTable table) {
+		if(depth > MAX_DEPTH)
+			throw new IllegalArgumentException("Perft can go at most " + MAX_DEPTH + " plies deep.");
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return pool.invoke(new PerftTask(new Position(pos), depth, 0, table));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Works out a speed from a node count and a time.
+	 *
+	 * @param nodes The number of nodes.
+	 * @param nanos The time taken in nanoseconds.
+	 * @return The number of nodes per second.
+	 */
+	public static long nodesPerSecond(long nodes, long nanos) {
+		if(nanos <= 0)
+			return 0;
+		return (long) (nodes * 1e9 / nanos);
+	}
+
+	private long perft(Position pos, int depth, int ply) {
+		if(depth <= 0)
+			return 1;
+		MoveList moves = moveLists[ply];
+		MoveGenerator.generate(pos, moves);
+		// Every generated move is legal, so the last ply only needs counting
+		if(depth == 1)
+			return moves.size();
+		long key = pos.getZobristKey();
+		if(table != null) {
+			long stored = table.probe(key, depth);
+			if(stored >= 0)
+				return stored;
+		}
+		long nodes = 0;
+		for(int i = 0; i < moves.size(); i++) {
+			pos.makeMove(moves.get(i));
+			nodes += perft(pos, depth - 1, ply + 1);
+			pos.unmakeMove();
+		}
+		if(table != null)
+			table.store(key, depth, nodes);
+		return nodes;
+	}
+
+	/**
+	 * Counts one subtree of a parallel perft. Deep subtrees near the root are split
+	 * into one task for each move, and everything else is counted on the spot.
+	 */
+	@SuppressWarnings("serial")
+	private static class PerftTask extends RecursiveTask<Long> {
+
+		private Position pos;
+		private int depth;
+		private int ply;
+		private PerftTable table;
+
+		/**
+		 * Makes a task that counts the subtree below a position.
+		 *
+		 * @param pos A position that belongs to this task alone.
+		 * @param depth The number of plies to look ahead.
+		 * @param ply The distance from the root of the whole perft.
+		 * @param table The shared table, or null.
+		 */
+		public PerftTask(Position pos, int depth, int ply, PerftTable table) {
+			this.pos = pos;
+			this.depth = depth;
+			this.ply = ply;
+			this.table = table;
+		}
+
+		@Override
+		protected Long compute() {
+			if(depth < MIN_SPLIT_DEPTH || ply >= MAX_SPLIT_PLY)
+				return new Perft(table).perft(pos, depth);
+			long key = pos.getZobristKey();
+			if(table != null) {
+				long stored = table.probe(key, depth);
+				if(stored >= 0)
+					return stored;
+			}
+			MoveList moves = new MoveList();
+			MoveGenerator.generate(pos, moves);
+			List<PerftTask> tasks = new ArrayList<PerftTask>();
+			for(int i = 0; i < moves.size(); i++) {
+				pos.makeMove(moves.get(i));
+				tasks.add(new PerftTask(new Position(pos), depth - 1, ply + 1, table));
+				pos.unmakeMove();
+			}
+			long nodes = 0;
+			for(PerftTask t : invokeAll(tasks)) {
+				nodes += t.join();
+			}
+			if(table != null)
+				table.store(key, depth, nodes);
+			return nodes;
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+import java.util.Arrays;
+
+/**
+ * A hash table of perft counts, so that a subtree reached by more than one move order
+ * is only counted once. It can be shared by several threads without locking.
+ * Each entry is two longs, the key XORed with the data and the data itself. A thread
+ * reading an entry that another thread is halfway through writing finds that the two
+ * don't match up, and treats it as a miss. Entries are always replaced.
+ */
+public class PerftTable {
+
+	private static final int DEPTH_BITS = 8;
+	private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+	/**
+	 * The entries, with the checked key of entry i at 2i and its data at 2i + 1.
+	 * The data holds the depth in its low bits and the node count above them.
+	 */
+	private final long[] entries;
+	private final int mask;
+
+	/**
+	 * Makes a table that takes up about the given amount of memory.
+	 *
+	 * @param megabytes The size of the table in megabytes, rounded down to a power of two entries.
+	 */
+	public PerftTable(int megabytes) {
+		long wanted = Math.max(1, (long) megabytes * 1024 * 1024 / 16);
+		int size = Integer.highestOneBit((int) Math.min(wanted, 1 << 29));
+		entries = new long[size * 2];
+		mask = size - 1;
+	}
+
+	/**
+	 * Looks up the node count of a position.
+	 *
+	 * @param key The Zobrist key of the position.
+	 * @param depth The depth of the count.
+	 * @return The node count, or -1 if it isn't in the table.
+	 */
+	public long probe(long key, int depth) {
+		int i = ((int) key & mask) * 2;
+		long checked = entries[i];
+		long data = entries[i + 1];
+		if((checked ^ data) != key || (data & DEPTH_MASK) != depth)
+			return -1;
+		return data >>> DEPTH_BITS;
+	}
+
+	/**
+	 * Stores the node count of a position, replacing whatever was there.
+	 *
+	 * @param key The Zobrist key of the position.
+	 * @param depth The depth of the count.
+	 * @param nodes The node count.
+	 */
+	public void store(long key, int depth, long nodes) {
+		int i = ((int) key & mask) * 2;
+		long data = (nodes << DEPTH_BITS) | depth;
+		entries[i] = key ^ data;
+		entries[i + 1] = data;
+	}
+
+	/**
+	 * Empties the table.
+	 */
+	public void clear() {
+		Arrays.fill(entries, 0);
+	}
+
+}
@@ -225,7 +225,7 @@ public abstract class Piece {
 	 * @param color The color of the piece.
 	 */
 	protected Piece(String currentSquareStr, int pieceType, String icon, String coolIcon, char identifier, int color) {
-		this(new Square(currentSquareStr), pieceType, icon, coolIcon, identifier, color);
+		this(Square.of(currentSquareStr), pieceType, icon, coolIcon, identifier, color);
 	}
 	
 	/**
@@ -258,7 +258,7 @@ public abstract class Piece {
 	 * @param color The color of the piece.
 	 */
 	protected Piece(char file, int rank, int pieceType, String icon, String coolIcon, char identifier, int color) {
-		this(new Square(Character.toString(file) + Integer.toString(rank)), pieceType, icon, coolIcon, identifier, color);
+		this(Square.of(file, rank), pieceType, icon, coolIcon, identifier, color);
 	}
 	
 	/**
@@ -279,7 +279,7 @@ public abstract class Piece {
 	 * @param pieceTypeStr A string representing the type of piece.
 	 */
 	protected Piece(String currentSquareStr, int pieceType) {
-		this.setCurrentSquare(new Square(currentSquareStr));
+		this.setCurrentSquare(Square.of(currentSquareStr));
 		this.pieceType = pieceType;
 		this.icon = pieceTypeIntToIcon[pieceType];
 		this.coolIcon = iconToFancyIcon.get(icon);
@@ -298,7 +298,7 @@ public abstract class Piece {
 		if((file == 0 && !Character.toString(label).matches("[1-8 ]")) 
 				|| (rank == 0 && !Character.toString(label).matches("[a-h ]")))
 				throw new IndexOutOfBoardException("Square at index 0 must be a label.");
-		this.setCurrentSquare(new Square(file, rank));
+		this.setCurrentSquare(Square.of(file, rank));
 		this.pieceType = LABEL;
 		this.identifier = 'l';
 		this.icon = Character.toString(label) + " ";
@@ -306,22 +306,15 @@ public abstract class Piece {
 	}
 	
 	/**
-	 * Creates a new blank square. Should only be called by the "blank" subclass.
-	 * 
-	 * @param file The x-coordinate of the square.
-	 * @param rank The y-coordinate of the square.
+	 * Creates the blank that stands for every empty square. Should only be called by
+	 * the "blank" subclass, which keeps a single shared instance.
 	 */
-	protected Piece(int file, int rank) {
-		try {
-			this.setCurrentSquare(new Square(file, rank));
-			this.pieceType = BLANK;
-			this.identifier = 'o';
-			this.icon = "_|";
-			this.coolIcon = iconToFancyIcon.get(icon);
-		}
-		catch(IndexOutOfBoardException e) {
-			throw new IndexOutOfBoardException(file, rank);
-		}
+	protected Piece() {
+		this.currentSquare = Square.of(0, 0);
+		this.pieceType = BLANK;
+		this.identifier = 'o';
+		this.icon = "_|";
+		this.coolIcon = iconToFancyIcon.get(icon);
 	}
 	
 	
@@ -421,12 +414,35 @@ public abstract class Piece {
 	 * @return A fancy string representing the square.
 	 */
 	public String toFancyString() {
+		return toFancyString(this.getCurrentX(), this.getCurrentY());
+	}
+	
+	/**
+	 * Returns the icon to be displayed on a given square of the board.
+	 * Blanks are shared between squares, so the board passes in the square being drawn.
+	 * 
+	 * @param x The file of the square being drawn.
+	 * @param y The rank of the square being drawn.
+	 * @return A string representing the square.
+	 */
+	public String toString(int x, int y) {
+		return (fancy)?(this.toFancyString(x, y)):(this.getIcon());
+	}
+	
+	/**
+	 * Returns the cool icon and the background color of a given square.
+	 * 
+	 * @param x The file of the square being drawn.
+	 * @param y The rank of the square being drawn.
+	 * @return A fancy string representing the square.
+	 */
+	public String toFancyString(int x, int y) {
 		String fancy = "";
 		if(this.isLabel())
 			fancy += ANSI_BORDER;
-		else if((this.getCurrentX() + this.getCurrentY()) % 2 == 1)
+		else if((x + y) % 2 == 1)
 			fancy += ANSI_LIGHT_SQUARE;
-		else if((this.getCurrentX() + this.getCurrentY()) % 2 == 0)
+		else if((x + y) % 2 == 0)
 			fancy += ANSI_DARK_SQUARE;
 		return fancy + this.getCoolIcon() + ANSI_RESET;
 	}
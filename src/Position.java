@@ -7,12 +7,28 @@ public class Position {
 	
 	public static boolean flipped = false;
 	
+	final public static int WHITE_KINGSIDE = 1;
+	final public static int WHITE_QUEENSIDE = 2;
+	final public static int BLACK_KINGSIDE = 4;
+	final public static int BLACK_QUEENSIDE = 8;
+	/**
+	 * The number of moves that can be made with makeMove() before they have to be unmade.
+	 */
+	final public static int MAX_UNDO = 256;
+	
 	/**
 	 * Holds the array of pieces.
 	 * Note that the indexing of the arrays is different from the indexing 
 	 * of the squares, which is why there is no getter method for this array.
 	 */
 	private Piece[][] pieces = new Piece[9][9]; // array of pieces
+	/**
+	 * Holds one bitboard for each type of piece, indexed by the piece type constants
+	 * in the Piece class. Kept in sync with the piece array by setPieceAt().
+	 */
+	private long[] bitboards = new long[Piece.BLACK_KING + 1];
+	private long whitePieces;
+	private long blackPieces;
 	private boolean inProgress = true;
 	private boolean whiteToMove;
 	private King whiteKing;
@@ -25,6 +41,48 @@ public class Position {
 	private Piece enPassantPiece;
 	private int halfMoveClock = 0;
 	private int fullMoveNumber = 1;
+	/**
+	 * The castling rights that are left, as a combination of the WHITE_KINGSIDE,
+	 * WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE flags.
+	 */
+	private int castlingRights;
+	/**
+	 * The Zobrist key of this position, kept up to date by every change to the board,
+	 * castling rights, en passant square and side to move.
+	 */
+	private long zobristKey;
+	/**
+	 * The Zobrist key of the pawns alone, used to look up the pawn structure in a PawnTable.
+	 */
+	private long pawnKey;
+	/**
+	 * The middlegame and endgame totals of material and piece-square values, counted
+	 * positive for white, and the game phase, all kept up to date as pieces are added
+	 * and removed. See the Evaluation class.
+	 */
+	private int middlegameScore, endgameScore, phase;
+	/**
+	 * The network that scores this position, if one has been set, and its
+	 * accumulator as seen by white and by black, kept up to date as pieces are
+	 * added and removed.
+	 */
+	private Network network;
+	private int[] whiteAccumulator, blackAccumulator;
+	/**
+	 * The undo stack used by makeMove() and unmakeMove(). Each record is packed into
+	 * one long by pushUndo(), with the captured piece and the pawn of a promotion
+	 * kept alongside it, along with the Zobrist key from before the move. The arrays are
+	 * allocated once, so making a move never allocates them.
+	 */
+	private long[] undoStates = new long[MAX_UNDO];
+	private long[] undoKeys = new long[MAX_UNDO];
+	private Piece[] undoCaptured = new Piece[MAX_UNDO];
+	private Piece[] undoPromoted = new Piece[MAX_UNDO];
+	private int undoCount = 0;
+	/**
+	 * A move list kept for getDelta(), so that scoring a position doesn't allocate one.
+	 */
+	private MoveList scratchMoves;
 	private String[] fen = new String[6];
 	private static Map<Character, Integer> fileToXMap = Square.fileToXMap;
 	
@@ -50,13 +108,13 @@ public class Position {
 		System.out.println("Is side to move in check: " + pos.isCheck());
 		System.out.println("Is side to move in check after move: ");
 		System.out.println("King to d7: " + 
-				pos.isStillCheckAfterMove(new Square('e', 8), new Square('d', 7)));
+				pos.isStillCheckAfterMove(Square.of('e', 8), Square.of('d', 7)));
 		System.out.println("Knight to d7: " +
-				pos.isStillCheckAfterMove(new Square('b', 8), new Square('d', 7)));
+				pos.isStillCheckAfterMove(Square.of('b', 8), Square.of('d', 7)));
 		System.out.println("King teleports to f6: " +
-				pos.isStillCheckAfterMove(new Square('e', 8), new Square('f', 6)));
+				pos.isStillCheckAfterMove(Square.of('e', 8), Square.of('f', 6)));
 		System.out.println("Queen teleports to kill b5: " + 
-				pos.isStillCheckAfterMove(new Square('d', 7), new Square('b', 5)));
+				pos.isStillCheckAfterMove(Square.of('d', 7), Square.of('b', 5)));
 		*/
 	}
 	
@@ -70,6 +128,11 @@ public class Position {
 		Piece[][] otherPieces = o.pieces;
 		for(int i = 0; i < otherPieces.length; i++) {
 			for(int j = 0; j < otherPieces[0].length; j++) {
+				// Blanks and labels never change, so they are shared rather than copied
+				if(otherPieces[i][j].isBlank() || otherPieces[i][j].isLabel()) {
+					pieces[i][j] = otherPieces[i][j];
+					continue;
+				}
 				pieces[i][j] = otherPieces[i][j].makeCopy();
 				if(otherPieces[i][j] == o.whiteKingsideRook)
 					whiteKingsideRook = (Rook) pieces[i][j];
@@ -85,16 +148,31 @@ public class Position {
 					blackKing = (King) pieces[i][j];
 			}
 		}
+		bitboards = o.bitboards.clone();
+		whitePieces = o.whitePieces;
+		blackPieces = o.blackPieces;
 		inProgress = o.isInProgress();
 		whiteToMove = o.isWhiteToMove();
 		halfMoveClock = o.halfMoveClock;
 		fullMoveNumber = o.fullMoveNumber;
+		castlingRights = o.castlingRights;
 		for(int i = 0; i < fen.length; i++) {
 			fen[i] = o.fen[i];
 		}
 		if(o.isEnPassantTurn()) {
-			this.setEnPassant(o.getEnPassantPiece().makeCopy(), 
-					o.getPieceAt(o.getEnPassantSquare()).makeCopy().getCurrentSquare());
+			Square epSquare = o.getEnPassantSquare();
+			// The pawn that can be taken is the one just past the en passant square
+			this.setEnPassant(this.getPieceAt(epSquare.getX(), (epSquare.getRank() == 3) ? 4 : 5), epSquare);
+		}
+		zobristKey = o.zobristKey;
+		pawnKey = o.pawnKey;
+		middlegameScore = o.middlegameScore;
+		endgameScore = o.endgameScore;
+		phase = o.phase;
+		if(o.network != null) {
+			network = o.network;
+			whiteAccumulator = o.whiteAccumulator.clone();
+			blackAccumulator = o.blackAccumulator.clone();
 		}
 	}
 	
@@ -147,7 +225,7 @@ public class Position {
 		// Initializes the vast expanse of blank squares
 		for(int rank = 2; rank <= 5; rank++) {
 			for(int file = 1; file < pieces.length; file++) {
-				pieces[rank][file] = new Blank(file, rank + 1);
+				pieces[rank][file] = Blank.EMPTY;
 			}
 		}
 		// Initializes white pieces
@@ -211,6 +289,7 @@ public class Position {
 				}
 			}
 		}
+		initBitboards();
 		if(countWhiteKings() > 1)
 			throw new PieceTypeException("There is more than one white king!");
 		if(countBlackKings() > 1)
@@ -245,10 +324,11 @@ public class Position {
 					&& blackQueensideRook != null)
 				blackQueensideRook.setMovedTrue();
 		}
+		castlingRights = findCastlingRights();
 		if(this.fen[3] == null)
 			enPassantSquare = null;
 		else if(this.fen[3].matches("[a-h][1-8]")) {
-			Square testSquare = new Square(this.fen[3]);
+			Square testSquare = Square.of(this.fen[3]);
 			char epFile = testSquare.getFile();
 			if(getSideToMove() == Piece.WHITE && testSquare.getRank() == 6) {
 				enPassantSquare = testSquare;
@@ -265,12 +345,244 @@ public class Position {
 		if(this.fen[5] == null);
 		else
 			this.fullMoveNumber = Integer.parseInt(this.fen[5]);
+		zobristKey = computeZobristKey();
 		}
 		catch(RuntimeException e) {
 			throw new AlgebraicInputException("Invalid FEN.");
 		}
 	}
 	
+	/**
+	 * Builds the bitboards from scratch out of the piece array.
+	 */
+	private void initBitboards() {
+		for(int rank = 1; rank < getHeight(); rank++) {
+			for(int file = 1; file < getWidth(); file++) {
+				addToBitboards(pieces[rank - 1][file], Bitboard.bit(file, rank));
+			}
+		}
+	}
+	
+	/**
+	 * Sets a square in the bitboards of a piece.
+	 * 
+	 * @param p The piece on the square.
+	 * @param b A bitboard with only that square set.
+	 */
+	private void addToBitboards(Piece p, long b) {
+		int type = p.getPieceType();
+		if(type < Piece.WHITE_PAWN || type > Piece.BLACK_KING)
+			return;
+		bitboards[type] |= b;
+		int index = Bitboard.first(b);
+		zobristKey ^= Zobrist.pieceKey(type, index);
+		if(type == Piece.WHITE_PAWN || type == Piece.BLACK_PAWN)
+			pawnKey ^= Zobrist.pieceKey(type, index);
+		middlegameScore += Evaluation.middlegame(type, index);
+		endgameScore += Evaluation.endgame(type, index);
+		phase += Evaluation.phase(type);
+		if(network != null)
+			network.update(whiteAccumulator, blackAccumulator, type, index, 1);
+		if(p.isWhite())
+			whitePieces |= b;
+		else
+			blackPieces |= b;
+	}
+	
+	/**
+	 * Clears a square in the bitboards of a piece.
+	 * 
+	 * @param p The piece that was on the square.
+	 * @param b A bitboard with only that square set.
+	 */
+	private void removeFromBitboards(Piece p, long b) {
+		int type = p.getPieceType();
+		if(type < Piece.WHITE_PAWN || type > Piece.BLACK_KING)
+			return;
+		bitboards[type] &= ~b;
+		int index = Bitboard.first(b);
+		zobristKey ^= Zobrist.pieceKey(type, index);
+		if(type == Piece.WHITE_PAWN || type == Piece.BLACK_PAWN)
+			pawnKey ^= Zobrist.pieceKey(type, index);
+		middlegameScore -= Evaluation.middlegame(type, index);
+		endgameScore -= Evaluation.endgame(type, index);
+		phase -= Evaluation.phase(type);
+		if(network != null)
+			network.update(whiteAccumulator, blackAccumulator, type, index, -1);
+		whitePieces &= ~b;
+		blackPieces &= ~b;
+	}
+	
+	/**
+	 * Works out the castling rights from whether the kings and castling rooks have moved.
+	 * 
+	 * @return The castling rights, as a combination of flags.
+	 */
+	private int findCastlingRights() {
+		int rights = 0;
+		if(whiteKing != null && !whiteKing.hasMoved()) {
+			if(whiteKingsideRook != null && !whiteKingsideRook.hasMoved())
+				rights |= WHITE_KINGSIDE;
+			if(whiteQueensideRook != null && !whiteQueensideRook.hasMoved())
+				rights |= WHITE_QUEENSIDE;
+		}
+		if(blackKing != null && !blackKing.hasMoved()) {
+			if(blackKingsideRook != null && !blackKingsideRook.hasMoved())
+				rights |= BLACK_KINGSIDE;
+			if(blackQueensideRook != null && !blackQueensideRook.hasMoved())
+				rights |= BLACK_QUEENSIDE;
+		}
+		return rights;
+	}
+	
+	/**
+	 * Takes away the castling rights that depend on a piece, which should be called
+	 * whenever that piece moves or is captured.
+	 * 
+	 * @param p The piece that moved or was captured.
+	 */
+	private void clearCastlingRights(Piece p) {
+		if(p == whiteKing)
+			setCastlingRights(castlingRights & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE));
+		else if(p == blackKing)
+			setCastlingRights(castlingRights & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE));
+		else if(p == whiteKingsideRook)
+			setCastlingRights(castlingRights & ~WHITE_KINGSIDE);
+		else if(p == whiteQueensideRook)
+			setCastlingRights(castlingRights & ~WHITE_QUEENSIDE);
+		else if(p == blackKingsideRook)
+			setCastlingRights(castlingRights & ~BLACK_KINGSIDE);
+		else if(p == blackQueensideRook)
+			setCastlingRights(castlingRights & ~BLACK_QUEENSIDE);
+	}
+	
+	/**
+	 * Changes the castling rights, keeping the Zobrist key up to date.
+	 * 
+	 * @param rights The new castling rights.
+	 */
+	private void setCastlingRights(int rights) {
+		zobristKey ^= Zobrist.castlingKey(castlingRights) ^ Zobrist.castlingKey(rights);
+		castlingRights = rights;
+	}
+	
+	/**
+	 * Returns the castling rights that are left.
+	 * 
+	 * @return A combination of the WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE
+	 * and BLACK_QUEENSIDE flags.
+	 */
+	public int getCastlingRights() {
+		return castlingRights;
+	}
+	
+	/**
+	 * Returns the Zobrist key of this position. Positions with the same pieces on the
+	 * same squares, the same castling rights, en passant square and side to move share
+	 * a key, and other positions almost never do.
+	 * 
+	 * @return A 64-bit key identifying this position.
+	 */
+	public long getZobristKey() {
+		return zobristKey;
+	}
+	
+	/**
+	 * Returns the Zobrist key of the pawns alone. Positions with the same pawns on the
+	 * same squares share a key, whatever the other pieces are.
+	 * 
+	 * @return A 64-bit key identifying the pawn structure.
+	 */
+	public long getPawnKey() {
+		return pawnKey;
+	}
+	
+	/**
+	 * Returns the middlegame total of material and piece-square values.
+	 * 
+	 * @return The total in centipawns, positive when white is ahead.
+	 */
+	public int getMiddlegameScore() {
+		return middlegameScore;
+	}
+	
+	/**
+	 * Returns the endgame total of material and piece-square values.
+	 * 
+	 * @return The total in centipawns, positive when white is ahead.
+	 */
+	public int getEndgameScore() {
+		return endgameScore;
+	}
+	
+	/**
+	 * Returns the game phase, counted from the pieces other than pawns and kings.
+	 * 
+	 * @return 24 or more with every piece on the board, falling to 0 with none.
+	 */
+	public int getPhase() {
+		return phase;
+	}
+	
+	/**
+	 * Sets the network that scores this position, and builds its accumulator from
+	 * the pieces on the board. From then on the accumulator is kept up to date as
+	 * moves are made and unmade, and copies of the position keep the network.
+	 * 
+	 * @param net The network, or null to stop using one.
+	 */
+	public void setNetwork(Network net) {
+		network = net;
+		if(net == null) {
+			whiteAccumulator = blackAccumulator = null;
+			return;
+		}
+		whiteAccumulator = new int[net.getHiddenSize()];
+		blackAccumulator = new int[net.getHiddenSize()];
+		net.reset(whiteAccumulator, blackAccumulator);
+		for(int type = Piece.WHITE_PAWN; type <= Piece.BLACK_KING; type++) {
+			for(long bb = bitboards[type]; bb != 0; bb &= bb - 1) {
+				net.update(whiteAccumulator, blackAccumulator, type, Bitboard.first(bb), 1);
+			}
+		}
+	}
+	
+	public boolean hasNetwork() {
+		return network != null;
+	}
+	
+	/**
+	 * Scores this position with its network.
+	 * 
+	 * @return The score in centipawns, from the point of view of the side to move.
+	 */
+	public int getNetworkScore() {
+		if(isWhiteToMove())
+			return network.evaluate(whiteAccumulator, blackAccumulator);
+		else
+			return network.evaluate(blackAccumulator, whiteAccumulator);
+	}
+	
+	/**
+	 * Works out the Zobrist key from scratch. The key is kept up to date as the position
+	 * changes, so this is only needed when the position is set up.
+	 * 
+	 * @return The Zobrist key of this position.
+	 */
+	private long computeZobristKey() {
+		long key = 0;
+		for(int type = Piece.WHITE_PAWN; type <= Piece.BLACK_KING; type++) {
+			for(long bb = bitboards[type]; bb != 0; bb &= bb - 1) {
+				key ^= Zobrist.pieceKey(type, Bitboard.first(bb));
+			}
+		}
+		key ^= Zobrist.castlingKey(castlingRights);
+		key ^= Zobrist.enPassantKey(enPassantSquare);
+		if(!whiteToMove)
+			key ^= Zobrist.blackToMoveKey();
+		return key;
+	}
+	
 	/**
 	 * Returns an array of pieces on a given rank based off a line of FEN.
 	 * The argument string must be characters representing pieces or numbers
@@ -335,7 +647,7 @@ public class Position {
 		// Go back and initialize all nulls to blanks
 		for(int i = 0; i < onThisRank.length; i++) {
 			if(onThisRank[i] == null)
-				onThisRank[i] = new Blank(i + 1, rank);
+				onThisRank[i] = Blank.EMPTY;
 		}
 		// Sets which pieces are needed for castling
 		if(whiteKing != null && whiteKing.getCurrentRank() == 1) {
@@ -389,7 +701,7 @@ public class Position {
 		String board = "";
 		for(int i = 8; i >= 0; i--) {
 			for(int j = 0; j < pieces[i].length; j++) {
-				board += pieces[i][j];
+				board += pieces[i][j].toString(j, i + 1);
 			}
 			if(i != pieces.length - 1)
 				board += "\n";
@@ -410,7 +722,7 @@ public class Position {
 		for(int i = 1; i < pieces.length; i++) {
 			board += "\n" + pieces[i][0].toString();
 			for(int j = pieces[0].length - 1; j >= 1; j--) {
-				board += pieces[i][j];
+				board += pieces[i][j].toString(j, i + 1);
 			}
 		}
 		return board;
@@ -445,7 +757,7 @@ public class Position {
 		for(int i = 8; i >= 0; i--) {
 			String currentRow = "";
 			for(int j = 0; j < pieces[i].length; j++) {
-				currentRow += pieces[i][j];
+				currentRow += pieces[i][j].toString(j, i + 1);
 			}
 			rows[8 - i] = currentRow;
 		}
@@ -467,7 +779,7 @@ public class Position {
 		for(int i = 1; i < pieces.length; i++) {
 			rows[k] = pieces[i - 1][0].toString();
 			for(int j = pieces[0].length - 1; j >= 1; j--) {
-				rows[k] += pieces[i - 1][j];
+				rows[k] += pieces[i - 1][j].toString(j, i);
 			}
 			k++;
 		}
@@ -515,29 +827,288 @@ public class Position {
 	 * @param endRank The ending rank of the piece.
 	 */
 	private void movePieceWithoutIncrementing(char startFile, int startRank, char endFile, int endRank) {
+		clearCastlingRights(getPieceAt(startFile, startRank));
+		clearCastlingRights(getPieceAt(endFile, endRank));
 		setPieceAt(endFile, endRank, getPieceAt(startFile, startRank));
-		setPieceAt(startFile, startRank, new Blank(startFile, startRank));
+		setPieceAt(startFile, startRank, Blank.EMPTY);
 		Piece testPiece = this.getPieceAt(endFile, endRank);
 		if(testPiece instanceof ChecksIfMoved) {
 			((ChecksIfMoved) testPiece).setMovedTrue();
 		}
 	}
 	
+//	****************** MAKE/UNMAKE ******************
+	
 	/**
-	 * Tests a position by moving a piece without updating the move counter.
-	 * This should only be called when looking to see if the king is in check after
-	 * an attempted move.
+	 * Makes a move on the board in place, without checking whether it is legal.
+	 * Everything needed to take the move back is pushed onto the undo stack, so
+	 * every call must be matched by a call to unmakeMove().
+	 * Unlike movePiece(), this never touches the moved flags of kings and rooks,
+	 * which are only kept up to date for moves made through the Game class.
 	 * 
-	 * @param startSquare
-	 * @param endSquare
+	 * @param move The move, packed as described in the PackedMove class.
 	 */
-	private void movePieceWithoutUpdating(Square startSquare, Square endSquare) {
-		char startFile = startSquare.getFile();
-		int startRank = startSquare.getRank();
-		char endFile = endSquare.getFile();
-		int endRank = endSquare.getRank();
-		setPieceAt(endFile, endRank, getPieceAt(startFile, startRank));
-		setPieceAt(startFile, startRank, new Blank(startFile, startRank));
+	public void makeMove(int move) {
+		int kind = PackedMove.getKind(move);
+		if(kind == PackedMove.KINGSIDE_CASTLE || kind == PackedMove.QUEENSIDE_CASTLE) {
+			makeCastle(move);
+			return;
+		}
+		int fromX = Bitboard.getX(PackedMove.getFrom(move));
+		int fromY = Bitboard.getY(PackedMove.getFrom(move));
+		int toX = Bitboard.getX(PackedMove.getTo(move));
+		int toY = Bitboard.getY(PackedMove.getTo(move));
+		Piece moving = pieces[fromY - 1][fromX];
+		// The pawn taken en passant is beside the moving pawn, not on the target square
+		int capturedY = (kind == PackedMove.EN_PASSANT) ? fromY : toY;
+		Piece captured = pieces[capturedY - 1][toX];
+		pushUndo(move, captured, PackedMove.isPromotion(move) ? moving : null);
+		clearCastlingRights(moving);
+		clearCastlingRights(captured);
+		if(moving.isPawn() || !captured.isBlank())
+			halfMoveClock = 0;
+		else
+			halfMoveClock++;
+		if(kind == PackedMove.EN_PASSANT)
+			setPieceAt(toX, capturedY, Blank.EMPTY);
+		if(PackedMove.isPromotion(move))
+			moving = makePromotedPiece(PackedMove.getPromotion(move), toX, toY, moving.getColor());
+		setPieceAt(toX, toY, moving);
+		setPieceAt(fromX, fromY, Blank.EMPTY);
+		// Only a double pawn push leaves an en passant square behind
+		if(kind == PackedMove.DOUBLE_PUSH)
+			setEnPassant(moving, Square.of(toX, (fromY + toY) / 2));
+		else
+			endEnPassantTurn();
+		finishMove();
+	}
+	
+	/**
+	 * Makes a move on the board in place, without checking whether it is legal.
+	 * Pawns that reach the last rank become queens unless the move says otherwise.
+	 * 
+	 * @param m The move to make. It must have a start square, unless it is a castle.
+	 */
+	public void makeMove(Move m) {
+		makeMove(toPackedMove(m));
+	}
+	
+	/**
+	 * Castles in place, without checking whether it is legal.
+	 * 
+	 * @param move The castling move, packed with the king and rook squares.
+	 */
+	private void makeCastle(int move) {
+		int rank = Bitboard.getY(PackedMove.getFrom(move));
+		int kFile = Bitboard.getX(PackedMove.getFrom(move));
+		int rFile = Bitboard.getX(PackedMove.getTo(move));
+		boolean kingside = PackedMove.getKind(move) == PackedMove.KINGSIDE_CASTLE;
+		Piece king = pieces[rank - 1][kFile];
+		Piece rook = pieces[rank - 1][rFile];
+		pushUndo(move, null, null);
+		clearCastlingRights(king);
+		halfMoveClock++;
+		// Both pieces are lifted first, since either may land on the other's square
+		setPieceAt(kFile, rank, Blank.EMPTY);
+		setPieceAt(rFile, rank, Blank.EMPTY);
+		setPieceAt(kingside ? 7 : 3, rank, king);
+		setPieceAt(kingside ? 6 : 4, rank, rook);
+		endEnPassantTurn();
+		finishMove();
+	}
+	
+	/**
+	 * Passes the turn to the other side without moving anything, for null move pruning
+	 * in the search. Any en passant capture is given up. It must be matched by a call
+	 * to unmakeMove(), and must never be made while the side to move is in check.
+	 */
+	public void makeNullMove() {
+		pushUndo(PackedMove.NONE, null, null);
+		halfMoveClock++;
+		endEnPassantTurn();
+		finishMove();
+	}
+	
+	/**
+	 * Takes back the last move made with makeMove() or makeNullMove(), restoring
+	 * the position exactly.
+	 */
+	public void unmakeMove() {
+		if(undoCount == 0)
+			throw new IllegalMoveException("There is no move to take back.");
+		undoCount--;
+		long state = undoStates[undoCount];
+		Piece captured = undoCaptured[undoCount];
+		Piece promoted = undoPromoted[undoCount];
+		undoCaptured[undoCount] = null;
+		undoPromoted[undoCount] = null;
+		int move = (int) (state & 0x7FFFF);
+		int kind = PackedMove.getKind(move);
+		int fromX = Bitboard.getX(PackedMove.getFrom(move));
+		int fromY = Bitboard.getY(PackedMove.getFrom(move));
+		int toX = Bitboard.getX(PackedMove.getTo(move));
+		int toY = Bitboard.getY(PackedMove.getTo(move));
+		whiteToMove = !whiteToMove;
+		if(!whiteToMove)
+			fullMoveNumber--;
+		// A null move left nothing on the board to take back
+		if(move == PackedMove.NONE);
+		else if(kind == PackedMove.KINGSIDE_CASTLE || kind == PackedMove.QUEENSIDE_CASTLE) {
+			int kTarget = (kind == PackedMove.KINGSIDE_CASTLE) ? 7 : 3;
+			int rTarget = (kind == PackedMove.KINGSIDE_CASTLE) ? 6 : 4;
+			Piece king = pieces[fromY - 1][kTarget];
+			Piece rook = pieces[fromY - 1][rTarget];
+			setPieceAt(kTarget, fromY, Blank.EMPTY);
+			setPieceAt(rTarget, fromY, Blank.EMPTY);
+			setPieceAt(fromX, fromY, king);
+			setPieceAt(toX, toY, rook);
+		}
+		else {
+			Piece moving = (promoted != null) ? promoted : pieces[toY - 1][toX];
+			setPieceAt(fromX, fromY, moving);
+			if(kind == PackedMove.EN_PASSANT) {
+				setPieceAt(toX, toY, Blank.EMPTY);
+				setPieceAt(toX, fromY, captured);
+			}
+			else
+				setPieceAt(toX, toY, captured);
+		}
+		castlingRights = (int) ((state >>> 19) & 0xF);
+		int epIndex = (int) ((state >>> 23) & 0x7F) - 1;
+		if(epIndex < 0)
+			endEnPassantTurn();
+		else {
+			int epX = Bitboard.getX(epIndex);
+			int epY = Bitboard.getY(epIndex);
+			// The pawn that can be taken is the one just past the en passant square
+			setEnPassant(pieces[((epY == 3) ? 4 : 5) - 1][epX], Square.fromIndex(epIndex));
+		}
+		halfMoveClock = (int) (state >>> 32);
+		zobristKey = undoKeys[undoCount];
+	}
+	
+	/**
+	 * Returns the number of moves made with makeMove() that have not been taken back.
+	 * 
+	 * @return The depth of the undo stack.
+	 */
+	public int getUndoCount() {
+		return undoCount;
+	}
+	
+	/**
+	 * Pushes a record onto the undo stack before a move is made.
+	 * The move, the castling rights, the en passant square and the half move clock
+	 * are packed into one long: bits 0-18 hold the packed move, 19-22 the castling rights,
+	 * 23-29 the en passant square plus one (zero for none), and 32-63 the clock.
+	 * 
+	 * @param move The packed move about to be made.
+	 * @param captured The piece on the captured square, which may be a blank.
+	 * @param promoted The pawn that is promoting, or null.
+	 */
+	private void pushUndo(int move, Piece captured, Piece promoted) {
+		int ep = (enPassantSquare == null) ? 0 : Bitboard.index(enPassantSquare) + 1;
+		undoStates[undoCount] = move | (castlingRights << 19) | (ep << 23) | ((long) halfMoveClock << 32);
+		undoKeys[undoCount] = zobristKey;
+		undoCaptured[undoCount] = captured;
+		undoPromoted[undoCount] = promoted;
+		undoCount++;
+	}
+	
+	/**
+	 * Hands the move over to the other side once a move has been made in place.
+	 */
+	private void finishMove() {
+		if(!whiteToMove)
+			fullMoveNumber++;
+		switchSideToMove();
+	}
+	
+	/**
+	 * Creates the piece a pawn promotes to.
+	 * 
+	 * @param promotion The promotion code, as defined in the PackedMove class.
+	 * @param x The file of the promotion square.
+	 * @param y The rank of the promotion square.
+	 * @param color The color of the pawn.
+	 * @return The new piece.
+	 */
+	private static Piece makePromotedPiece(int promotion, int x, int y, int color) {
+		char file = Square.xToFileMap.get(x);
+		switch(promotion) {
+			case PackedMove.PROMOTE_KNIGHT:
+				return new Knight(file, y, color);
+			case PackedMove.PROMOTE_BISHOP:
+				return new Bishop(file, y, color);
+			case PackedMove.PROMOTE_ROOK:
+				return new Rook(file, y, color);
+			default:
+				return new Queen(file, y, color);
+		}
+	}
+	
+	/**
+	 * Packs a move for the side to move, working out from the board whether it is
+	 * a capture, a double pawn push, en passant or a promotion.
+	 * 
+	 * @param m The move. It must have a start square, unless it is a castle.
+	 * @return The packed move.
+	 */
+	public int toPackedMove(Move m) {
+		if(m.getCastling() != 0)
+			return getCastlingMove(m.getCastling());
+		return toPackedMove(m.getStartSquare(), m.getTargetSquare(), m.getPromotingTo());
+	}
+	
+	/**
+	 * Packs a move from one square to another.
+	 * 
+	 * @param startSquare The starting square of the piece.
+	 * @param endSquare The target square of the piece.
+	 * @param promotingTo The piece a pawn promotes to, or 0 for a queen.
+	 * @return The packed move.
+	 */
+	private int toPackedMove(Square startSquare, Square endSquare, char promotingTo) {
+		int fromX = startSquare.getX();
+		int fromY = startSquare.getY();
+		int toX = endSquare.getX();
+		int toY = endSquare.getY();
+		Piece moving = pieces[fromY - 1][fromX];
+		boolean capture = !pieces[toY - 1][toX].isBlank();
+		int kind = PackedMove.NORMAL;
+		int promotion = PackedMove.NO_PROMOTION;
+		if(moving.isPawn()) {
+			// A pawn moving diagonally onto an empty square is capturing en passant
+			if(fromX != toX && !capture) {
+				kind = PackedMove.EN_PASSANT;
+				capture = true;
+			}
+			else if(Math.abs(toY - fromY) == 2)
+				kind = PackedMove.DOUBLE_PUSH;
+			if(toY == 1 || toY == 8)
+				promotion = PackedMove.promotionFromChar(promotingTo);
+		}
+		return PackedMove.make(Bitboard.index(fromX, fromY), Bitboard.index(toX, toY), promotion, kind, capture);
+	}
+	
+	/**
+	 * Packs a castling move for the side to move, whether or not it is legal.
+	 * 
+	 * @param side Either Move.KINGSIDE_CASTLE or Move.QUEENSIDE_CASTLE.
+	 * @return The packed move, from the king's square to the rook's square.
+	 */
+	public int getCastlingMove(int side) {
+		King king = whiteToMove ? whiteKing : blackKing;
+		Rook rook;
+		if(side == Move.KINGSIDE_CASTLE)
+			rook = whiteToMove ? whiteKingsideRook : blackKingsideRook;
+		else
+			rook = whiteToMove ? whiteQueensideRook : blackQueensideRook;
+		if(king == null || rook == null)
+			throw new IllegalMoveException("There is no king and rook to castle with.");
+		return PackedMove.make(Bitboard.index(king.getCurrentSquare()), Bitboard.index(rook.getCurrentSquare()),
+				PackedMove.NO_PROMOTION, (side == Move.KINGSIDE_CASTLE)
+						? PackedMove.KINGSIDE_CASTLE : PackedMove.QUEENSIDE_CASTLE, false);
 	}
 	
 	public boolean isInProgress() {
@@ -594,6 +1165,7 @@ public class Position {
 	
 	public void switchSideToMove() {
 		whiteToMove = !whiteToMove;
+		zobristKey ^= Zobrist.blackToMoveKey();
 	}
 	
 	public Piece getPieceAt(char file, int rank) {
@@ -640,7 +1212,12 @@ public class Position {
 	}
 	
 	public void setPieceAt(int file, int rank, Piece piece) {
-		piece.setCurrentSquare(new Square(file, rank));
+		piece.setCurrentSquare(Square.of(file, rank));
+		long b = Bitboard.bit(file, rank);
+		Piece old = pieces[rank - 1][file];
+		if(old != null)
+			removeFromBitboards(old, b);
+		addToBitboards(piece, b);
 		pieces[rank - 1][file] = piece;
 	}
 	
@@ -671,7 +1248,7 @@ public class Position {
 	 * @param rank The rank of the square to be set blank.
 	 */
 	public void removePieceAt(char file, int rank) {
-		setPieceAt(file, rank, new Blank(file, rank));
+		setPieceAt(file, rank, Blank.EMPTY);
 	}
 	
 	/**
@@ -680,50 +1257,100 @@ public class Position {
 	 * @return A list of all possible moves.
 	 */
 	public List<Move> getAllMoves() {
-		List<Move> allMoves = new LinkedList<Move>();
-		for(int rank = 1; rank < getHeight(); rank++) {
-			for(int file = 1; file < getWidth(); file++) {
-				Piece p = getPieceAt(file, rank);
-//				System.out.print(p);
-				if(p.getColor() == getSideToMove() && !p.isBlank()) {	
-					allMoves.addAll(getPieceAt(file, rank).getPossibleMoves(this));
-				}
-			}
-//			System.out.println();
+		return MoveGenerator.getLegalMoves(this);
+	}
+	
+	/**
+	 * Returns the bitboard of a single type of piece.
+	 * 
+	 * @param pieceType The type of piece, as defined in the Piece class.
+	 * @return A bitboard of every square holding a piece of that type.
+	 */
+	public long getBitboard(int pieceType) {
+		return bitboards[pieceType];
+	}
+	
+	/**
+	 * Returns the bitboard of every piece of a given color.
+	 * 
+	 * @param color The color, as defined in the Piece class.
+	 * @return A bitboard of every square holding a piece of that color.
+	 */
+	public long getPiecesOfColor(int color) {
+		if(color == Piece.WHITE)
+			return whitePieces;
+		else if(color == Piece.BLACK)
+			return blackPieces;
+		else
+			return Bitboard.EMPTY;
+	}
+	
+	/**
+	 * Collects the piece objects standing on a set of squares.
+	 * 
+	 * @param bb A bitboard of the squares to look at.
+	 * @return A list of the pieces on those squares, in order of bit index.
+	 */
+	public LinkedList<Piece> getPiecesOn(long bb) {
+		LinkedList<Piece> found = new LinkedList<Piece>();
+		for(; bb != 0; bb &= bb - 1) {
+			int index = Bitboard.first(bb);
+			found.add(pieces[Bitboard.getY(index) - 1][Bitboard.getX(index)]);
 		}
-		return allMoves;
+		return found;
+	}
+	
+	/**
+	 * Returns the bitboard of every occupied square.
+	 * 
+	 * @return A bitboard of every square holding a piece.
+	 */
+	public long getOccupied() {
+		return whitePieces | blackPieces;
 	}
 	
 	public Square getSquareAt(char file, int rank) {
-		return getPieceAt(file, rank).getCurrentSquare();
+		return getSquareAt(fileToXMap.get(file), rank);
 	}
 	
 	public Square getSquareAt(int file, int rank) {
-		return getPieceAt(file, rank).getCurrentSquare();
+		if(!Bitboard.isOnBoard(file, rank))
+			throw new IndexOutOfBoardException(file, rank);
+		return Square.of(file, rank);
 	}
 	
 	public boolean isOccupiedAt(char file, int rank) {
-		return getPieceAt(file, rank).isOccupied();
+		return isOccupiedAt(fileToXMap.get(file), rank);
 	}
 	
 	public boolean isOccupiedAt(int file, int rank) {
-		return getPieceAt(file, rank).isOccupied();
+		if(!Bitboard.isOnBoard(file, rank))
+			throw new IndexOutOfBoardException(file, rank);
+		return (getOccupied() & Bitboard.bit(file, rank)) != 0;
 	}
 	
 	public boolean isOccupiedAt(Square sq) {
-		return getPieceAt(sq).isOccupied();
+		return isOccupiedAt(sq.getX(), sq.getY());
 	}
 	
 	public int getOccupiedAt(int file, int rank) {
-		return getPieceAt(file, rank).getColor();
+		if(!Bitboard.isOnBoard(file, rank))
+			throw new IndexOutOfBoardException(file, rank);
+		long b = Bitboard.bit(file, rank);
+		if((whitePieces & b) != 0)
+			return Piece.WHITE;
+		else if((blackPieces & b) != 0)
+			return Piece.BLACK;
+		else
+			return Piece.BLANK;
 	}
 	
 	public int getOccupiedAt(char file, int rank) {
-		return getPieceAt(file, rank).getColor();
+		return getOccupiedAt(fileToXMap.get(file), rank);
 	}
 
 	public int getOccupiedAt(Square sq) {
-		return getOccupiedAt(sq.getFile(), sq.getRank());
+		return getOccupiedAt(sq.getX(), sq.getY());
 	}
 	
 	public int getColorAt(int file, int rank) {
@@ -748,8 +1375,13 @@ public class Position {
 		// Checks if these pieces are the correct ones
 		if(rook == null || king == null)
 			return false;
-		// Checks if either piece has moved
-		if(king.hasMoved() || rook.hasMoved())
+		// Checks if the right to castle on this side has been lost
+		int right;
+		if(king.isWhite())
+			right = (side == Move.KINGSIDE_CASTLE) ? WHITE_KINGSIDE : WHITE_QUEENSIDE;
+		else
+			right = (side == Move.KINGSIDE_CASTLE) ? BLACK_KINGSIDE : BLACK_QUEENSIDE;
+		if((castlingRights & right) == 0)
 			return false;
 		// Checks if they're on the same rank, and the starting rank
 		int startRank = (king.getColor() == Piece.WHITE) ? 1 : 8 ;
@@ -765,18 +1397,20 @@ public class Position {
 			return false;
 		if(side == Move.QUEENSIDE_CASTLE && kFile <= rFile)
 			return false;
-		// Makes sure the squares between are safe
-		if(side == Move.KINGSIDE_CASTLE) {
-			for(int file = kFile + 1; file <= 7; file++) { // Checks up to the g-file
-				if(this.isOccupiedAt(file, kRank) || this.isAttacked(file, kRank))
-					return false;
-			}
+		// Makes sure nothing but the king and rook stands between or on the target squares
+		int kTarget = (side == Move.KINGSIDE_CASTLE) ? 7 : 3;
+		int rTarget = (side == Move.KINGSIDE_CASTLE) ? 6 : 4;
+		int low = Math.min(Math.min(kFile, rFile), Math.min(kTarget, rTarget));
+		int high = Math.max(Math.max(kFile, rFile), Math.max(kTarget, rTarget));
+		for(int file = low; file <= high; file++) {
+			if(file != kFile && file != rFile && this.isOccupiedAt(file, kRank))
+				return false;
 		}
-		else if(side == Move.QUEENSIDE_CASTLE) {
-			for(int file = kFile - 1; file >= 3; file--) { // Checks up to the c-file
-				if(this.isOccupiedAt(file, kRank) || this.isAttacked(file, kRank))
-					return false;
-			}
+		// Makes sure the squares the king passes through and lands on are safe
+		int step = (kTarget > kFile) ? 1 : -1;
+		for(int file = kFile + step; file != kTarget + step; file += step) {
+			if(this.isAttacked(file, kRank))
+				return false;
 		}
 		return true;
 	}
@@ -870,6 +1504,7 @@ public class Position {
 	}
 	
 	public void setEnPassant(Piece enPassantPiece, Square enPassantSquare) {
+		zobristKey ^= Zobrist.enPassantKey(this.enPassantSquare) ^ Zobrist.enPassantKey(enPassantSquare);
 		this.enPassantPiece = enPassantPiece;
 		this.enPassantSquare = enPassantSquare;
 	}
@@ -879,6 +1514,7 @@ public class Position {
 	}
 	
 	public void endEnPassantTurn() {
+		zobristKey ^= Zobrist.enPassantKey(enPassantSquare);
 		enPassantSquare = null;
 		enPassantPiece = null;
 	}
@@ -977,17 +1613,37 @@ public class Position {
 	 * @param endSquare The target square of the move.
 	 * @return True if the king of the side that made the move is still in check
 	 * after the move is made.
+	 * @throws IllegalMoveException If there is no piece of the side to move on the
+	 * starting square, or the target square holds a piece of the same color.
 	 */
 	public boolean isStillCheckAfterMove(Square startSquare, Square endSquare) {
-		// Makes sure the actual position isn't changed
-		Position dummy = new Position(this);
-		dummy.movePieceWithoutUpdating(startSquare, endSquare);
-//		System.out.println(dummy);
-//		System.out.println(dummy.getSideToMove() + " is now moving");
-//		System.out.println(dummy.isCheck());
-//		System.out.println(whiteKing.getCurrentSquare());
-		// TODO debug
-		return dummy.isCheck();
+		int mover = whiteToMove ? Piece.WHITE : Piece.BLACK;
+		// Making a move like this could take the mover's own king off the board
+		if(getColorAt(startSquare) != mover)
+			throw new IllegalMoveException("There is no piece to move on " + startSquare + ".");
+		if(getColorAt(endSquare) == mover)
+			throw new IllegalMoveException("A piece can't capture a piece of its own color.");
+		// The move is made and taken back in place, so the actual position isn't changed
+		makeMove(toPackedMove(startSquare, endSquare, '\u0000'));
+		try {
+			return isKingAttacked(mover);
+		}
+		finally {
+			unmakeMove();
+		}
+	}
+	
+	/**
+	 * Checks if the king of a given color is attacked, no matter whose turn it is.
+	 * 
+	 * @param color The color of the king.
+	 * @return True if and only if a piece of the other color attacks the king.
+	 */
+	private boolean isKingAttacked(int color) {
+		long king = bitboards[(color == Piece.WHITE) ? Piece.WHITE_KING : Piece.BLACK_KING];
+		if(king == 0)
+			throw new PieceTypeException(((color == Piece.WHITE) ? "White" : "Black") + " king not found.");
+		return isAttackedBy(Bitboard.first(king), (color == Piece.WHITE) ? Piece.BLACK : Piece.WHITE);
 	}
 	
 	/**
@@ -997,15 +1653,7 @@ public class Position {
 	 * @return True if a piece is attacking it.
 	 */
 	public boolean isAttacked(Square sq) {
-		switchSideToMove();
-		boolean pAttacking = Pawn.findAttacking(sq, this).size() > 0;
-		boolean bAttacking = Bishop.findAttacking(sq, this).size() > 0;
-		boolean nAttacking = Knight.findAttacking(sq, this).size() > 0;
-		boolean rAttacking = Rook.findAttacking(sq, this).size() > 0;
-		boolean qAttacking = Queen.findAttacking(sq, this).size() > 0;
-		boolean kAttacking = King.findAttacking(sq, this).size() > 0;
-		switchSideToMove();
-		return pAttacking || bAttacking || nAttacking || rAttacking || qAttacking || kAttacking;
+		return isAttacked(sq.getX(), sq.getY());
 	}
 	
 	public boolean isAttacked(char file, int rank) {
@@ -1013,8 +1661,68 @@ public class Position {
 	}
 	
 	public boolean isAttacked(int file, int rank) {
-		return isAttacked(new Square(file, rank));
-		
+		int attacker = whiteToMove ? Piece.BLACK : Piece.WHITE;
+		// A square holding one of the attacker's own pieces can't be captured on
+		if(getOccupiedAt(file, rank) == attacker)
+			return false;
+		return isAttackedBy(Bitboard.index(file, rank), attacker);
+	}
+	
+	/**
+	 * Checks if any piece of the given color attacks a square, using only bitboards.
+	 * Whether or not the square is occupied is not considered.
+	 * 
+	 * @param index The bit index of the square.
+	 * @param color The color of the attacking side.
+	 * @return True if and only if a piece of that color attacks the square.
+	 */
+	public boolean isAttackedBy(int index, int color) {
+		return isAttackedBy(index, color, getOccupied());
+	}
+	
+	/**
+	 * Checks if any piece of the given color would attack a square if the occupied
+	 * squares were different, which is how a king looks for safe squares to step to.
+	 * 
+	 * @param index The bit index of the square.
+	 * @param color The color of the attacking side.
+	 * @param occupied The squares to treat as occupied when looking along lines.
+	 * @return True if and only if a piece of that color attacks the square.
+	 */
+	public boolean isAttackedBy(int index, int color, long occupied) {
+		// Black piece types are always one more than the matching white type
+		int offset = (color == Piece.WHITE) ? 0 : 1;
+		// A pawn attacks this square if a pawn of the other color here would attack it
+		if((Bitboard.pawnAttacksFrom(index, (color == Piece.WHITE) ? Piece.BLACK : Piece.WHITE)
+				& bitboards[Piece.WHITE_PAWN + offset]) != 0)
+			return true;
+		if((Bitboard.knightAttacksFrom(index) & bitboards[Piece.WHITE_KNIGHT + offset]) != 0)
+			return true;
+		if((Bitboard.kingAttacksFrom(index) & bitboards[Piece.WHITE_KING + offset]) != 0)
+			return true;
+		long queens = bitboards[Piece.WHITE_QUEEN + offset];
+		if((Bitboard.bishopAttacks(index, occupied) & (bitboards[Piece.WHITE_BISHOP + offset] | queens)) != 0)
+			return true;
+		return (Bitboard.rookAttacks(index, occupied) & (bitboards[Piece.WHITE_ROOK + offset] | queens)) != 0;
+	}
+	
+	/**
+	 * Finds every piece of the given color that attacks a square.
+	 * 
+	 * @param index The bit index of the square.
+	 * @param color The color of the attacking side.
+	 * @param occupied The squares to treat as occupied when looking along lines.
+	 * @return A bitboard of the attacking pieces.
+	 */
+	public long getAttackers(int index, int color, long occupied) {
+		int offset = (color == Piece.WHITE) ? 0 : 1;
+		long queens = bitboards[Piece.WHITE_QUEEN + offset];
+		return (Bitboard.pawnAttacksFrom(index, (color == Piece.WHITE) ? Piece.BLACK : Piece.WHITE)
+					& bitboards[Piece.WHITE_PAWN + offset])
+				| (Bitboard.knightAttacksFrom(index) & bitboards[Piece.WHITE_KNIGHT + offset])
+				| (Bitboard.kingAttacksFrom(index) & bitboards[Piece.WHITE_KING + offset])
+				| (Bitboard.bishopAttacks(index, occupied) & (bitboards[Piece.WHITE_BISHOP + offset] | queens))
+				| (Bitboard.rookAttacks(index, occupied) & (bitboards[Piece.WHITE_ROOK + offset] | queens));
 	}
 	
 	public int getWidth() {
@@ -1059,13 +1767,16 @@ public class Position {
 	
 	/**
 	 * Returns the difference between point values. If white has more points, then
-	 * the result will be positive.
+	 * the result will be positive. If a network has been set, its score is used
+	 * instead of counting points, in whole pawns.
 	 * 
 	 * @return An integer representing the difference in point values for each side.
 	 */
 	public int getDelta() {
-		List<Move> allMoves = getAllMoves();
-		if(allMoves.size() == 0) {
+		if(scratchMoves == null)
+			scratchMoves = new MoveList();
+		MoveGenerator.generate(this, scratchMoves);
+		if(scratchMoves.isEmpty()) {
 			if(isInsufficientMaterial())
 				return 0;
 			else if(isWhiteInCheck())
@@ -1075,6 +1786,8 @@ public class Position {
 			else
 				return 0;
 		}
+		else if(network != null)
+			return (isWhiteToMove() ? getNetworkScore() : -getNetworkScore()) / 100;
 		else
 			return getWhitePoints() - getBlackPoints();
 	}
@@ -1160,30 +1873,14 @@ public class Position {
 			fen += "b ";
 		// Does castling availability
 		String castling = "";
-		try {
-			if(!whiteKing.hasMoved() && !whiteKingsideRook.hasMoved())
-				castling += "K";
-		}
-		catch(NullPointerException e) {
-		}
-		try {
-			if(!whiteKing.hasMoved() && !whiteQueensideRook.hasMoved())
-				castling += "Q";
-		}
-		catch(NullPointerException e) {
-		}
-		try {
-			if(!blackKing.hasMoved() && !blackKingsideRook.hasMoved())
-				castling += "k";
-		}
-		catch(NullPointerException e) {
-		}
-		try {
-			if(!blackKing.hasMoved() && !blackQueensideRook.hasMoved())
-				castling += "q";
-		}
-		catch(NullPointerException e) {
-		}
+		if((castlingRights & WHITE_KINGSIDE) != 0)
+			castling += "K";
+		if((castlingRights & WHITE_QUEENSIDE) != 0)
+			castling += "Q";
+		if((castlingRights & BLACK_KINGSIDE) != 0)
+			castling += "k";
+		if((castlingRights & BLACK_QUEENSIDE) != 0)
+			castling += "q";
 		if(castling.length() == 0)
 			fen += "- ";
 		else
@@ -53,9 +53,7 @@ public class Queen extends Piece implements LineMovable, DiagonalMovable {
 	 */
 	@Override
 	public List<Move> getPossibleMoves(Position pos) {
-		List<Move> possible = LineMovable.findPossibleMoves(pos, this);
-		possible.addAll(DiagonalMovable.findPossibleMoves(pos, this));
-		return possible;
+		return MoveGenerator.getLegalMoves(pos, this);
 	}
 
 	/**
@@ -79,9 +77,12 @@ public class Queen extends Piece implements LineMovable, DiagonalMovable {
 	 * @return All possible queens of the correct color that can go to that square.
 	 */
 	public static LinkedList<Piece> findAttacking(Square sq, Position pos) {
-		LinkedList<Piece> possible = Rook.findAttacking(sq, pos, true);
-		possible.addAll(Bishop.findAttacking(sq, pos, true));
-		return possible;
+		int movingColor = pos.getSideToMove();
+		if(movingColor == BLANK || pos.getColorAt(sq) == movingColor)
+			return new LinkedList<Piece>();
+		int type = (movingColor == WHITE) ? WHITE_QUEEN : BLACK_QUEEN;
+		return pos.getPiecesOn(Bitboard.queenAttacks(Bitboard.index(sq), pos.getOccupied())
+				& pos.getBitboard(type));
 	}
 	
 	@Override
@@ -22,15 +22,6 @@ public class Rook extends Piece implements ChecksIfMoved, LineMovable {
 			throw new PieceColorException();
 	}
 	
-	/**
-	 * Creates a "dummy" rook at a given location to test if a square is attacked.
-	 * 
-	 * @param startSquare The square the rook should be placed on.
-	 */
-	private Rook(String startSquare) {
-		super(startSquare, BLANK);
-	}
-	
 	@Override
 	public Piece makeCopy() {
 		Piece o = new Rook(getCurrentFile(), getCurrentRank(), getColor());
@@ -59,8 +50,7 @@ public class Rook extends Piece implements ChecksIfMoved, LineMovable {
 	 */
 	@Override
 	public List<Move> getPossibleMoves(Position pos) {
-		List<Move> possible = LineMovable.findPossibleMoves(pos, this);
-		return possible;
+		return MoveGenerator.getLegalMoves(pos, this);
 	}
 	
 	/**
@@ -97,86 +87,18 @@ public class Rook extends Piece implements ChecksIfMoved, LineMovable {
 	 * @return All possible rooks or queens of the correct color that can go to that square.
 	 */
 	public static LinkedList<Piece> findAttacking(Square sq, Position pos, boolean isQueen) {
-		LinkedList<Piece> possible = new LinkedList<Piece>();
-		// Creates a dummy piece
-		Rook dummy = new Rook(sq.toString());
-		int dummyFile = dummy.getCurrentX();
-		int dummyRank = dummy.getCurrentY();
-		int dummyColor = pos.getColorAt(sq);
 		int movingColor = pos.getSideToMove();
 		// This means that the piece on this square is the same color
 		// as the side to move, meaning the capture shouldn't be possible
-		if(dummyColor == movingColor)
-			return possible;
-		// Checks squares above (increasing file, constant rank)
-		for(int rank = dummyRank + 1; rank < pos.getHeight(); rank++) {
-			int testColor = pos.getColorAt(dummyFile, rank);
-			// This check should never be reached, but just to be safe
-			if(pos.getOccupiedAt(dummyFile, rank) == LABEL)
-				break;
-			// This square is blank
-			else if(!pos.isOccupiedAt(dummyFile, rank))
-				continue;
-			// This means that the square might be under attack!
-			else if(testColor == movingColor
-					&& (isQueen ? (pos.getPieceAt(dummyFile, rank) instanceof Queen)
-					: (pos.getPieceAt(dummyFile, rank) instanceof Rook))) {
-				possible.add(pos.getPieceAt(dummyFile, rank));
-				break;
-			}
-			// Means that the square here is occupied by something other than a rook
-			else
-				break;
-		}
-		// Checks squares to the left (constant rank, decreasing file)
-		for(int file = dummyFile - 1; file > 0; file--) {
-			int testColor = pos.getOccupiedAt(file, dummyRank);
-			if(pos.getOccupiedAt(file, dummyRank) == LABEL)
-				break;
-			else if(!pos.isOccupiedAt(file, dummyRank))
-				continue;
-			else if(testColor == movingColor
-					&& (isQueen ? (pos.getPieceAt(file, dummyRank) instanceof Queen)
-							: (pos.getPieceAt(file, dummyRank) instanceof Rook))) {
-				possible.add(pos.getPieceAt(file, dummyRank));
-				break;
-			}
-			else
-				break;
-		}
-		// Checks squares to the right (constant rank, increasing file)
-		for(int file = dummyFile + 1; file < pos.getWidth(); file++) {
-			int testColor = pos.getOccupiedAt(file, dummyRank);
-			if(pos.getOccupiedAt(file, dummyRank) == LABEL)
-				break;
-			else if(!pos.isOccupiedAt(file, dummyRank))
-				continue;
-			else if(testColor == movingColor
-					&& (isQueen ? (pos.getPieceAt(file, dummyRank) instanceof Queen)
-							: (pos.getPieceAt(file, dummyRank) instanceof Rook))) {
-				possible.add(pos.getPieceAt(file, dummyRank));
-				break;
-			}
-			else
-				break;
-		}
-		// Checks squares below (decreasing rank, constant file)
-		for(int rank = dummyRank - 1; rank > 0; rank--) {
-			int testColor = pos.getColorAt(dummyFile, rank);
-			if(pos.getOccupiedAt(dummyFile, rank) == LABEL)
-				break;
-			else if(!pos.isOccupiedAt(dummyFile, rank))
-				continue;
-			else if(testColor == movingColor
-					&& (isQueen ? (pos.getPieceAt(dummyFile, rank) instanceof Queen)
-							: (pos.getPieceAt(dummyFile, rank) instanceof Rook))) {
-				possible.add(pos.getPieceAt(dummyFile, rank));
-				break;
-			}
-			else
-				break;
-		}
-		return possible;
+		if(movingColor == BLANK || pos.getColorAt(sq) == movingColor)
+			return new LinkedList<Piece>();
+		int type;
+		if(isQueen)
+			type = (movingColor == WHITE) ? WHITE_QUEEN : BLACK_QUEEN;
+		else
+			type = (movingColor == WHITE) ? WHITE_ROOK : BLACK_ROOK;
+		return pos.getPiecesOn(Bitboard.rookAttacks(Bitboard.index(sq), pos.getOccupied())
+				& pos.getBitboard(type));
 	}
 	
 	@Override
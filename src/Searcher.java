@@ -0,0 +1,799 @@
+/**
+ * Searches a position for the best move with fail-soft alpha-beta negamax.
+ * Scores are in centipawns from the point of view of the side to move, so a positive
+ * score is good for whoever is about to move. A searcher keeps its move lists and
+ * principal variation between searches, so one searcher should be reused rather than
+ * made for every move.
+ * think() deepens one ply at a time until it runs out of time, nodes or depth, and
+ * always answers with the result of the last search it finished.
+ */
+public class Searcher {
+
+	/**
+	 * The deepest the search can go, which is also the number of move lists kept.
+	 */
+	final public static int MAX_PLY = 64;
+
+	/**
+	 * The score of giving checkmate right now. Mates further away score a little less,
+	 * so the search always goes for the quickest mate.
+	 */
+	final public static int MATE = 30000;
+
+	/**
+	 * Greater than any score a search can return.
+	 */
+	final public static int INFINITY = 32000;
+
+	final public static int PAWN_VALUE = 100;
+	final public static int KNIGHT_VALUE = 300;
+	final public static int BISHOP_VALUE = 300;
+	final public static int ROOK_VALUE = 500;
+	final public static int QUEEN_VALUE = 900;
+
+	/**
+	 * One move list for each ply, reused from node to node.
+	 */
+	private MoveList[] moveLists = new MoveList[MAX_PLY];
+
+	/**
+	 * The principal variation found at each ply, where pvTable[ply] holds the
+	 * best line from that ply onward and pvLength[ply] is its length.
+	 */
+	private int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+	private int[] pvLength = new int[MAX_PLY];
+
+	/**
+	 * How often, in nodes, the search looks at the clock.
+	 */
+	private static final int CHECK_INTERVAL = 1024;
+
+	/**
+	 * Ordering scores. The table move comes first, then captures and promotions by
+	 * MVV-LVA, then the two killers of the ply, then the other quiet moves by history,
+	 * and last the captures that lose material by static exchange.
+	 */
+	private static final int HASH_MOVE_SCORE = 1 << 30;
+	private static final int CAPTURE_SCORE = 1 << 24;
+	private static final int BAD_CAPTURE_SCORE = -(1 << 24);
+	private static final int FIRST_KILLER_SCORE = (1 << 24) - 1;
+	private static final int SECOND_KILLER_SCORE = (1 << 24) - 2;
+	/**
+	 * The most a history score can reach before every history score is halved,
+	 * which keeps them all below the killers.
+	 */
+	private static final int HISTORY_LIMIT = 1 << 20;
+
+	/**
+	 * Two quiet moves for each ply that recently caused a cutoff there.
+	 */
+	private int[][] killers = new int[MAX_PLY][2];
+
+	/**
+	 * How often each quiet move has caused a cutoff, weighted by depth, indexed by
+	 * the color of the mover and the start and target squares.
+	 */
+	private int[][][] history = new int[3][64][64];
+
+	/**
+	 * Scratch space for static exchange evaluation, so that sorting out captures
+	 * never allocates.
+	 */
+	private int[] exchangeGains = new int[StaticExchange.MAX_EXCHANGE];
+
+	/**
+	 * Null move pruning is only tried this deep or deeper.
+	 */
+	private static final int NULL_MOVE_MIN_DEPTH = 3;
+
+	/**
+	 * Late move reductions are only made this deep or deeper, and only after this many
+	 * moves have been searched in full.
+	 */
+	private static final int LMR_MIN_DEPTH = 3;
+	private static final int LMR_MIN_MOVES = 3;
+
+	/**
+	 * How many plies a late quiet move is reduced by, indexed by depth and by how many
+	 * moves came before it. Reductions grow with the logarithm of both.
+	 */
+	private static final int[][] LMR_TABLE = new int[MAX_PLY][MoveList.MAX_MOVES];
+
+	/**
+	 * Iterations this deep or deeper search a narrow window around the score of the
+	 * last iteration first, widening it each time the score falls outside.
+	 */
+	private static final int ASPIRATION_MIN_DEPTH = 4;
+	private static final int ASPIRATION_WINDOW = 25;
+
+	static {
+		for(int depth = 1; depth < MAX_PLY; depth++) {
+			for(int i = 1; i < MoveList.MAX_MOVES; i++) {
+				LMR_TABLE[depth][i] = (int) (0.75 + Math.log(depth) * Math.log(i) / 2.25);
+			}
+		}
+	}
+
+	private long nodes;
+
+	/**
+	 * The table of earlier results, which lives as long as the searcher does.
+	 */
+	private TranspositionTable tt;
+
+	/**
+	 * The number of entries in each searcher's pawn table.
+	 */
+	private static final int PAWN_TABLE_SIZE = 1 << 14;
+
+	/**
+	 * The pawn structures scored so far. Each searcher has its own, so helper threads
+	 * never share one.
+	 */
+	private PawnTable pawnTable = new PawnTable(PAWN_TABLE_SIZE);
+
+	/**
+	 * The number of entries in an evaluation cache made by the searcher itself.
+	 */
+	final public static int EVAL_CACHE_SIZE = 1 << 16;
+
+	/**
+	 * Evaluations of positions seen before, which may be shared with other searchers.
+	 */
+	private EvalCache evalCache;
+
+	/**
+	 * The limits of think(). No new iteration starts once the soft time limit has passed,
+	 * and the search stops in the middle of an iteration at the hard time limit or
+	 * the node limit. A limit of zero or less means no limit.
+	 */
+	private int maxDepth = MAX_PLY - 1;
+	private long softTimeLimit = 0;
+	private long hardTimeLimit = 0;
+	private long nodeLimit = 0;
+
+	/**
+	 * When the current search started, in milliseconds.
+	 */
+	private long startTime;
+
+	/**
+	 * Set when the search runs past a limit, after which every node returns at once.
+	 * Only think() can be stopped, and search() always runs to the end.
+	 */
+	private boolean stopped;
+	private boolean canStop;
+
+	/**
+	 * Set by another thread through stop(), and noticed the next time the limits are checked.
+	 */
+	private volatile boolean stopRequested;
+
+	/**
+	 * Zero for a searcher working on its own or leading a parallel search, or the number
+	 * of a helper thread. Helpers stay quiet, leave the age of the transposition table
+	 * alone, and every other one starts a ply deeper so the threads spread out over
+	 * different depths.
+	 */
+	private int helperId = 0;
+
+	/**
+	 * The results of the last iteration think() finished.
+	 */
+	private int bestMove = PackedMove.NONE;
+	private int bestScore;
+	private int completedDepth;
+	private String bestPV = "";
+
+	/**
+	 * Makes a searcher with a transposition table of its own.
+	 *
+	 * @param hashMegabytes The size of the transposition table in megabytes.
+	 */
+	public Searcher(int hashMegabytes) {
+		this(new TranspositionTable(hashMegabytes));
+	}
+
+	/**
+	 * Makes a searcher that uses a given transposition table.
+	 *
+	 * @param tt The transposition table.
+	 */
+	public Searcher(TranspositionTable tt) {
+		this(tt, new EvalCache(EVAL_CACHE_SIZE));
+	}
+
+	/**
+	 * Makes a searcher that uses a given transposition table and evaluation cache.
+	 *
+	 * @param tt The transposition table.
+	 * @param evalCache The evaluation cache.
+	 */
+	public Searcher(TranspositionTable tt, EvalCache evalCache) {
+		this.tt = tt;
+		this.evalCache = evalCache;
+		for(int i = 0; i < MAX_PLY; i++) {
+			moveLists[i] = new MoveList();
+		}
+	}
+
+	/**
+	 * Searches a position to a fixed depth. The position is left as it was.
+	 *
+	 * @param pos The position to search.
+	 * @param depth The number of plies to look ahead.
+	 * @return The score of the position for the side to move, in centipawns.
+	 */
+	public int search(Position pos, int depth) {
+		nodes = 0;
+		pvLength[0] = 0;
+		stopped = false;
+		canStop = false;
+		bestMove = PackedMove.NONE;
+		tt.newSearch();
+		return negamax(pos, Math.min(depth, MAX_PLY - 1), -INFINITY, INFINITY, 0, false);
+	}
+
+	/**
+	 * Sets the limits used by think().
+	 *
+	 * @param maxDepth The deepest iteration to search.
+	 * @param softTimeLimit The time in milliseconds after which no new iteration starts.
+	 * @param hardTimeLimit The time in milliseconds after which the search stops at once.
+	 * @param nodeLimit The number of nodes after which the search stops at once.
+	 */
+	public void setLimits(int maxDepth, long softTimeLimit, long hardTimeLimit, long nodeLimit) {
+		this.maxDepth = Math.max(1, Math.min(maxDepth, MAX_PLY - 1));
+		this.softTimeLimit = softTimeLimit;
+		this.hardTimeLimit = hardTimeLimit;
+		this.nodeLimit = nodeLimit;
+	}
+
+	/**
+	 * Makes this searcher a helper in a parallel search.
+	 *
+	 * @param helperId The number of the helper, starting from 1.
+	 */
+	public void setHelperId(int helperId) {
+		this.helperId = helperId;
+	}
+
+	/**
+	 * Asks the search to stop as soon as it can. This may be called from another thread.
+	 */
+	public void stop() {
+		stopRequested = true;
+	}
+
+	/**
+	 * Takes back a call to stop(), which should be done before a search is started.
+	 */
+	public void clearStop() {
+		stopRequested = false;
+	}
+
+	/**
+	 * Searches a position with iterative deepening, one ply deeper at a time, until
+	 * it reaches a limit set by setLimits(). An iteration that is cut off partway is
+	 * thrown away, so the answer always comes from the last finished iteration.
+	 * The position is left as it was.
+	 *
+	 * @param pos The position to search.
+	 * @return The best move, or PackedMove.NONE if there are no legal moves.
+	 */
+	public int think(Position pos) {
+		startTime = System.currentTimeMillis();
+		nodes = 0;
+		stopped = false;
+		bestMove = PackedMove.NONE;
+		bestScore = 0;
+		completedDepth = 0;
+		bestPV = "";
+		if(helperId == 0)
+			tt.newSearch();
+		clearOrdering();
+		for(int depth = 1 + (helperId & 1); depth <= maxDepth; depth++) {
+			canStop = true;
+			int score = aspirationSearch(pos, depth);
+			if(stopped) {
+				// If not even the first iteration finished, the best root move so far will have to do
+				if(bestMove == PackedMove.NONE)
+					bestMove = (pvLength[0] > 0) ? pvTable[0][0]
+							: moveLists[0].isEmpty() ? PackedMove.NONE : moveLists[0].get(0);
+				break;
+			}
+			bestScore = score;
+			bestMove = getBestMove();
+			bestPV = getPrincipalVariationString();
+			completedDepth = depth;
+			if(helperId == 0)
+				System.out.println("depth " + depth + " score " + score + " nodes " + nodes
+					+ " time " + getElapsedTime() + " hashfull " + tt.hashfull() + " pv " + bestPV);
+			// A mate has been found, or there is nothing to choose between
+			if(bestMove == PackedMove.NONE || isMateScore(score) || moveLists[0].size() == 1)
+				break;
+			if(softTimeLimit > 0 && getElapsedTime() >= softTimeLimit)
+				break;
+		}
+		return bestMove;
+	}
+
+	/**
+	 * Searches the root with an aspiration window around the score of the last iteration.
+	 * Most of the time the score lands inside, and the narrow window prunes more. When it
+	 * falls outside, the window is widened on that side and the root is searched again.
+	 *
+	 * @param pos The position to search.
+	 * @param depth The depth of this iteration.
+	 * @return The score of the position for the side to move.
+	 */
+	private int aspirationSearch(Position pos, int depth) {
+		int delta = ASPIRATION_WINDOW;
+		int alpha = -INFINITY;
+		int beta = INFINITY;
+		if(depth >= ASPIRATION_MIN_DEPTH && completedDepth > 0 && !isMateScore(bestScore)) {
+			alpha = Math.max(bestScore - delta, -INFINITY);
+			beta = Math.min(bestScore + delta, INFINITY);
+		}
+		while(true) {
+			pvLength[0] = 0;
+			int score = negamax(pos, depth, alpha, beta, 0, false);
+			if(stopped)
+				return 0;
+			delta *= 2;
+			if(score <= alpha && alpha > -INFINITY)
+				alpha = Math.max(score - delta, -INFINITY);
+			else if(score >= beta && beta < INFINITY)
+				beta = Math.min(score + delta, INFINITY);
+			else
+				return score;
+		}
+	}
+
+	/**
+	 * Returns the score of the last iteration think() finished.
+	 *
+	 * @return The score in centipawns for the side to move.
+	 */
+	public int getBestScore() {
+		return bestScore;
+	}
+
+	/**
+	 * Returns the depth of the last iteration think() finished.
+	 *
+	 * @return The depth in plies.
+	 */
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	/**
+	 * Returns the principal variation of the last iteration think() finished.
+	 *
+	 * @return The moves in long algebraic notation, separated by spaces.
+	 */
+	public String getBestPrincipalVariation() {
+		return bestPV;
+	}
+
+	/**
+	 * Returns the time since the current search started.
+	 *
+	 * @return The time in milliseconds.
+	 */
+	public long getElapsedTime() {
+		return System.currentTimeMillis() - startTime;
+	}
+
+	public EvalCache getEvalCache() {
+		return evalCache;
+	}
+
+	public TranspositionTable getTranspositionTable() {
+		return tt;
+	}
+
+	/**
+	 * Returns the best move found by the last search.
+	 *
+	 * @return The first move of the principal variation, or PackedMove.NONE if there is none.
+	 */
+	public int getBestMove() {
+		if(pvLength[0] == 0)
+			return PackedMove.NONE;
+		return pvTable[0][0];
+	}
+
+	/**
+	 * Returns the line of best play found by the last search.
+	 *
+	 * @return The packed moves of the principal variation, starting from the root.
+	 */
+	public int[] getPrincipalVariation() {
+		int[] pv = new int[pvLength[0]];
+		System.arraycopy(pvTable[0], 0, pv, 0, pv.length);
+		return pv;
+	}
+
+	/**
+	 * Returns the principal variation of the last search in long algebraic notation.
+	 *
+	 * @return The moves separated by spaces.
+	 */
+	public String getPrincipalVariationString() {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < pvLength[0]; i++) {
+			if(i > 0)
+				sb.append(' ');
+			sb.append(PackedMove.toString(pvTable[0][i]));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the number of positions visited by the last search.
+	 *
+	 * @return The node count.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Checks whether a score means that one side can force mate.
+	 *
+	 * @param score A score returned by a search.
+	 * @return True if and only if the score is a mate score.
+	 */
+	public static boolean isMateScore(int score) {
+		return Math.abs(score) >= MATE - MAX_PLY;
+	}
+
+	/**
+	 * Scores a position from the point of view of the side to move, with its network
+	 * if it has one, and otherwise with the tapered evaluation and this searcher's own
+	 * pawn table. Scores are looked up in the evaluation cache first.
+	 *
+	 * @param pos The position to score.
+	 * @return The score in centipawns.
+	 */
+	private int evaluate(Position pos) {
+		long key = pos.getZobristKey();
+		int score = evalCache.probe(key);
+		if(score != EvalCache.MISS)
+			return score;
+		// Kept clear of the mate scores, which nothing but a mate may reach
+		if(pos.hasNetwork())
+			score = Math.max(-MATE + MAX_PLY + 1, Math.min(pos.getNetworkScore(), MATE - MAX_PLY - 1));
+		else
+			score = Evaluation.evaluate(pos, pawnTable);
+		evalCache.store(key, score);
+		return score;
+	}
+
+	/**
+	 * Searches a position with fail-soft alpha-beta. The returned score may fall
+	 * outside the window, which tells the caller how far it failed by.
+	 *
+	 * @param pos The position to search.
+	 * @param depth The number of plies left to look ahead.
+	 * @param alpha The score the side to move is already sure of.
+	 * @param beta The score the opponent is already sure of.
+	 * @param ply The distance from the root.
+	 * @param nullAllowed Whether a null move may be tried, which it may not right after another.
+	 * @return The score of the position for the side to move.
+	 */
+	private int negamax(Position pos, int depth, int alpha, int beta, int ply, boolean nullAllowed) {
+		if(depth <= 0)
+			return quiescence(pos, alpha, beta, ply);
+		nodes++;
+		if(canStop && (nodes % CHECK_INTERVAL) == 0)
+			checkLimits();
+		if(stopped)
+			return 0;
+		pvLength[ply] = 0;
+		long key = pos.getZobristKey();
+		long entry = tt.probe(key);
+		int ttMove = TranspositionTable.getMove(entry);
+		// The root is always searched, so that there is a principal variation to return
+		if(entry != 0 && ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+			int ttScore = TranspositionTable.scoreFromTable(TranspositionTable.getScore(entry), ply);
+			int bound = TranspositionTable.getBound(entry);
+			if(bound == TranspositionTable.EXACT
+					|| (bound == TranspositionTable.LOWER_BOUND && ttScore >= beta)
+					|| (bound == TranspositionTable.UPPER_BOUND && ttScore <= alpha))
+				return ttScore;
+		}
+		boolean inCheck = pos.isCheck();
+		MoveList moves = moveLists[ply];
+		MoveGenerator.generate(pos, moves);
+		if(moves.isEmpty()) {
+			if(inCheck)
+				return -MATE + ply;
+			return 0;
+		}
+		if(ply >= MAX_PLY - 1)
+			return evaluate(pos);
+		// Null move pruning: if passing still leaves the opponent unable to reach beta
+		// with a shallower search, a real move surely would too. Passing is never tried
+		// in check, and never with only pawns left, where having to move can be the problem.
+		if(nullAllowed && depth >= NULL_MOVE_MIN_DEPTH && !inCheck && !isMateScore(beta)
+				&& hasPiecesOtherThanPawns(pos) && evaluate(pos) >= beta) {
+			int reduction = 2 + depth / 4;
+			pos.makeNullMove();
+			int score = -negamax(pos, depth - 1 - reduction, -beta, -beta + 1, ply + 1, false);
+			pos.unmakeMove();
+			if(stopped)
+				return 0;
+			if(score >= beta)
+				return isMateScore(score) ? beta : score;
+		}
+		// The best move of the last iteration is searched first at the root, and the move
+		// from the table is searched first everywhere else
+		scoreMoves(pos, moves, (ply == 0 && bestMove != PackedMove.NONE) ? bestMove : ttMove, ply);
+		int originalAlpha = alpha;
+		int best = -INFINITY;
+		int bestMoveHere = PackedMove.NONE;
+		for(int i = 0; i < moves.size(); i++) {
+			int m = moves.pickBest(i);
+			boolean quiet = !isNoisy(m) && moves.getScore(i) < SECOND_KILLER_SCORE;
+			pos.makeMove(m);
+			int score;
+			// Principal variation search: once the first move has set alpha, the others
+			// only need to be shown worse, which a zero window does most cheaply. A move
+			// that turns out better is searched again with the full window.
+			if(i == 0)
+				score = -negamax(pos, depth - 1, -beta, -alpha, ply + 1, true);
+			else {
+				int newDepth = depth - 1;
+				// Late move reductions: quiet moves this far down the order rarely turn out best,
+				// so they get a shallower search first
+				if(quiet && depth >= LMR_MIN_DEPTH && i >= LMR_MIN_MOVES && !inCheck && !pos.isCheck())
+					newDepth = Math.max(1, depth - 1 - LMR_TABLE[Math.min(depth, MAX_PLY - 1)][i]);
+				score = -negamax(pos, newDepth, -alpha - 1, -alpha, ply + 1, true);
+				if(score > alpha && newDepth < depth - 1)
+					score = -negamax(pos, depth - 1, -alpha - 1, -alpha, ply + 1, true);
+				if(score > alpha && score < beta)
+					score = -negamax(pos, depth - 1, -beta, -alpha, ply + 1, true);
+			}
+			pos.unmakeMove();
+			if(stopped)
+				return 0;
+			if(score > best) {
+				best = score;
+				bestMoveHere = m;
+				if(score > alpha) {
+					alpha = score;
+					updatePV(ply, m);
+					if(alpha >= beta) {
+						if(!isNoisy(m))
+							updateQuietCutoff(pos, m, depth, ply);
+						break;
+					}
+				}
+			}
+		}
+		int bound;
+		if(best >= beta)
+			bound = TranspositionTable.LOWER_BOUND;
+		else if(best > originalAlpha)
+			bound = TranspositionTable.EXACT;
+		else
+			bound = TranspositionTable.UPPER_BOUND;
+		tt.store(key, depth, TranspositionTable.scoreToTable(best, ply), bound,
+				(bound == TranspositionTable.UPPER_BOUND) ? PackedMove.NONE : bestMoveHere);
+		return best;
+	}
+
+	/**
+	 * Searches only captures and promotions until the position is quiet, so that the
+	 * search never stops in the middle of an exchange. The side to move may stand pat,
+	 * taking the static score instead of making a capture, unless it is in check, in which
+	 * case every way out of check is searched.
+	 *
+	 * @param pos The position to search.
+	 * @param alpha The score the side to move is already sure of.
+	 * @param beta The score the opponent is already sure of.
+	 * @param ply The distance from the root.
+	 * @return The score of the position for the side to move.
+	 */
+	private int quiescence(Position pos, int alpha, int beta, int ply) {
+		nodes++;
+		if(canStop && (nodes % CHECK_INTERVAL) == 0)
+			checkLimits();
+		if(stopped)
+			return 0;
+		pvLength[ply] = 0;
+		if(ply >= MAX_PLY - 1)
+			return evaluate(pos);
+		boolean inCheck = pos.isCheck();
+		int best = -INFINITY;
+		if(!inCheck) {
+			best = evaluate(pos);
+			if(best >= beta)
+				return best;
+			if(best > alpha)
+				alpha = best;
+		}
+		MoveList moves = moveLists[ply];
+		MoveGenerator.generateNoisy(pos, moves);
+		if(inCheck && moves.isEmpty())
+			return -MATE + ply;
+		for(int i = 0; i < moves.size(); i++) {
+			moves.setScore(i, captureValue(pos, moves.get(i)));
+		}
+		for(int i = 0; i < moves.size(); i++) {
+			int m = moves.pickBest(i);
+			// A capture that loses material can't do better than standing pat
+			if(!inCheck && StaticExchange.isLosing(pos, m, exchangeGains))
+				continue;
+			pos.makeMove(m);
+			int score = -quiescence(pos, -beta, -alpha, ply + 1);
+			pos.unmakeMove();
+			if(stopped)
+				return 0;
+			if(score > best) {
+				best = score;
+				if(score > alpha) {
+					alpha = score;
+					updatePV(ply, m);
+					if(alpha >= beta)
+						break;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Gives every move in a list its ordering score.
+	 *
+	 * @param pos The current position.
+	 * @param moves The moves to score.
+	 * @param hashMove The move to try first, or PackedMove.NONE.
+	 * @param ply The distance from the root.
+	 */
+	private void scoreMoves(Position pos, MoveList moves, int hashMove, int ply) {
+		int color = pos.getSideToMove();
+		for(int i = 0; i < moves.size(); i++) {
+			int m = moves.get(i);
+			int score;
+			if(m == hashMove)
+				score = HASH_MOVE_SCORE;
+			else if(isNoisy(m))
+				score = (StaticExchange.isLosing(pos, m, exchangeGains) ? BAD_CAPTURE_SCORE : CAPTURE_SCORE)
+						+ captureValue(pos, m);
+			else if(m == killers[ply][0])
+				score = FIRST_KILLER_SCORE;
+			else if(m == killers[ply][1])
+				score = SECOND_KILLER_SCORE;
+			else
+				score = history[color][PackedMove.getFrom(m)][PackedMove.getTo(m)];
+			moves.setScore(i, score);
+		}
+	}
+
+	/**
+	 * Checks whether the side to move has any knights, bishops, rooks or queens.
+	 *
+	 * @param pos The current position.
+	 * @return True if and only if the side to move has a piece other than pawns and the king.
+	 */
+	private static boolean hasPiecesOtherThanPawns(Position pos) {
+		int offset = (pos.getSideToMove() == Piece.WHITE) ? 0 : 1;
+		return (pos.getBitboard(Piece.WHITE_KNIGHT + offset) | pos.getBitboard(Piece.WHITE_BISHOP + offset)
+				| pos.getBitboard(Piece.WHITE_ROOK + offset) | pos.getBitboard(Piece.WHITE_QUEEN + offset)) != 0;
+	}
+
+	/**
+	 * Checks whether a move is a capture or a promotion, which are ordered by MVV-LVA
+	 * rather than by killers and history.
+	 *
+	 * @param m The packed move.
+	 * @return True if and only if the move captures or promotes.
+	 */
+	private static boolean isNoisy(int m) {
+		return PackedMove.isCapture(m) || PackedMove.isPromotion(m);
+	}
+
+	/**
+	 * Remembers a quiet move that caused a cutoff, as a killer of its ply and in the
+	 * history table. Deeper cutoffs count for more.
+	 *
+	 * @param pos The current position.
+	 * @param m The packed move.
+	 * @param depth The depth the cutoff happened at.
+	 * @param ply The distance from the root.
+	 */
+	private void updateQuietCutoff(Position pos, int m, int depth, int ply) {
+		if(killers[ply][0] != m) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = m;
+		}
+		int[] fromHistory = history[pos.getSideToMove()][PackedMove.getFrom(m)];
+		int to = PackedMove.getTo(m);
+		fromHistory[to] += depth * depth;
+		if(fromHistory[to] >= HISTORY_LIMIT) {
+			for(int[][] byColor : history) {
+				for(int[] byFrom : byColor) {
+					for(int j = 0; j < byFrom.length; j++) {
+						byFrom[j] /= 2;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forgets the killers, and ages the history so that the last search counts for less.
+	 */
+	private void clearOrdering() {
+		for(int[] k : killers) {
+			k[0] = PackedMove.NONE;
+			k[1] = PackedMove.NONE;
+		}
+		for(int[][] byColor : history) {
+			for(int[] byFrom : byColor) {
+				for(int j = 0; j < byFrom.length; j++) {
+					byFrom[j] /= 8;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scores a capture or promotion for move ordering.
+	 *
+	 * @param pos The current position.
+	 * @param m The packed move.
+	 * @return Ten times the value of the captured piece less the value of the moving one.
+	 */
+	private static int captureValue(Position pos, int m) {
+		int to = PackedMove.getTo(m);
+		int from = PackedMove.getFrom(m);
+		int victim = 0;
+		if(PackedMove.getKind(m) == PackedMove.EN_PASSANT)
+			victim = PAWN_VALUE;
+		else if(PackedMove.isCapture(m))
+			victim = pieceValue(pos.getPieceAt(Bitboard.getX(to), Bitboard.getY(to)));
+		if(PackedMove.getPromotion(m) == PackedMove.PROMOTE_QUEEN)
+			victim += QUEEN_VALUE;
+		return victim * 10 - pieceValue(pos.getPieceAt(Bitboard.getX(from), Bitboard.getY(from))) / 100;
+	}
+
+	/**
+	 * Returns the value of a piece in centipawns.
+	 *
+	 * @param p The piece.
+	 * @return Its value, or 0 for kings and empty squares.
+	 */
+	private static int pieceValue(Piece p) {
+		return p.getValue() * 100;
+	}
+
+	/**
+	 * Stops the search if it has run past the hard time limit or the node limit,
+	 * or if it has been asked to stop.
+	 */
+	private void checkLimits() {
+		if(stopRequested
+				|| (hardTimeLimit > 0 && getElapsedTime() >= hardTimeLimit)
+				|| (nodeLimit > 0 && nodes >= nodeLimit))
+			stopped = true;
+	}
+
+	/**
+	 * Sets the principal variation of a ply to a new best move followed by
+	 * the principal variation of the next ply.
+	 *
+	 * @param ply The ply the move was made at.
+	 * @param m The new best move.
+	 */
+	private void updatePV(int ply, int m) {
+		pvTable[ply][0] = m;
+		System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, pvLength[ply + 1]);
+		pvLength[ply] = pvLength[ply + 1] + 1;
+	}
+
+}
@@ -4,20 +4,33 @@ import java.util.Map;
 /**
  * A glorified pair of coordinates representing a square on a game board.
  * Maps ensure that both character and integer inputs are acceptable.
+ * Squares are immutable. Every pair of coordinates from 0 to 8 has one shared
+ * instance, returned by the of() methods, which should be used instead of the
+ * constructors so that no square is ever allocated while playing or searching.
  * 
  * @author jhshi
  *
  */
 public class Square {
 
-	private char file;
-	private int rank;
-	private int x;
-	private int y;
+	private final char file;
+	private final int rank;
+	private final int x;
+	private final int y;
 	
 	final public static Map<Character, Integer> fileToXMap;
 	final public static Map<Integer, Character> xToFileMap;
 	
+	/**
+	 * The shared instances, indexed by x and then y. Index 0 stands for an unknown
+	 * file or rank, as in the square of a move that only names its starting file.
+	 */
+	private static final Square[][] SQUARES = new Square[9][9];
+	/**
+	 * The shared instances of the 64 board squares, indexed by bit index.
+	 */
+	private static final Square[] BY_INDEX = new Square[64];
+	
 	static {
 		fileToXMap = new HashMap<Character, Integer>();
 		xToFileMap = new HashMap<Integer, Character>();
@@ -32,6 +45,83 @@ public class Square {
 			xToFileMap.put(i, start);
 			start++;
 		}
+		for(int x = 0; x < 9; x++) {
+			for(int y = 0; y < 9; y++) {
+				SQUARES[x][y] = new Square(x, y);
+			}
+		}
+		for(int i = 0; i < 64; i++) {
+			BY_INDEX[i] = SQUARES[Bitboard.getX(i)][Bitboard.getY(i)];
+		}
+	}
+	
+//	****************** SHARED INSTANCES ******************
+	
+	/**
+	 * Returns the shared square with the given coordinates.
+	 * A value of 0 for either coordinate indicates an unknown file or rank.
+	 * 
+	 * @param x An integer 0-8, representing the file.
+	 * @param y An integer 0-8, representing the rank.
+	 * @return The square.
+	 * @throws IndexOutOfBoardException if x or y is not within 0-8.
+	 */
+	public static Square of(int x, int y) {
+		if(x < 0 || x > 8 || y < 0 || y > 8)
+			throw new IndexOutOfBoardException();
+		return SQUARES[x][y];
+	}
+	
+	/**
+	 * Returns the shared square with the given file and rank.
+	 * 
+	 * @param file A character a-h, or '\u0000' for an unknown file.
+	 * @param rank An integer 0-8.
+	 * @return The square.
+	 * @throws IndexOutOfBoardException if the file or rank is not on the board.
+	 */
+	public static Square of(char file, int rank) {
+		Integer x = fileToXMap.get(file);
+		if(x == null)
+			throw new IndexOutOfBoardException();
+		return of(x, rank);
+	}
+	
+	/**
+	 * Returns the shared square named by a string of algebraic notation, such as e4 or c5.
+	 * 
+	 * @param s The input string.
+	 * @return The square.
+	 * @throws AlgebraicInputException if the string is not a valid representation of a square.
+	 */
+	public static Square of(String s) {
+		if(!s.matches("(?i)^[a-h][1-8]$"))
+			throw new AlgebraicInputException("Argument is not a valid string representation of a square.");
+		return of(s.charAt(0), Character.getNumericValue(s.charAt(1)));
+	}
+	
+	/**
+	 * Returns the shared square for a move specifier, which is either a file or a rank.
+	 * The other coordinate is left unknown.
+	 * 
+	 * @param specifier A character a-h or 1-8, or '\u0000' if neither is known.
+	 * @return The square.
+	 */
+	public static Square ofSpecifier(char specifier) {
+		if(Character.isDigit(specifier))
+			return of(0, Character.getNumericValue(specifier));
+		else
+			return of(specifier, 0);
+	}
+	
+	/**
+	 * Returns the shared square at a bit index, as used by the Bitboard class.
+	 * 
+	 * @param index The bit index, 0-63.
+	 * @return The square.
+	 */
+	public static Square fromIndex(int index) {
+		return BY_INDEX[index];
 	}
 	
 //	****************** CONSTRUCTORS ******************
@@ -100,16 +190,7 @@ public class Square {
 	 * @throws IndexOutOfBoardException if the specified file is not between a-h.
 	 */
 	public Square(char file) {
-		if(Character.isDigit(file)) {
-			this.setRank(Character.getNumericValue(file));
-			this.setFile('\u0000');
-		}
-		else {
-			this.setFile(file);
-			this.setRank(0);
-		}
-		if(x < 0 || x > 8 || y < 0 || y > 8)
-			throw new IndexOutOfBoardException();
+		this(ofSpecifier(file));
 	}
 	
 	/**
@@ -193,7 +274,7 @@ public class Square {
 	 * @return True if and only if the squares have the same coordinates.
 	 */
 	public boolean equals(Square o) {
-		return this.getFile() == o.getFile() && this.getRank() == o.getRank();
+		return this == o || (o != null && this.x == o.x && this.y == o.y);
 	}
 	
 //	****************** GETTERS AND SETTERS ******************
@@ -212,36 +293,16 @@ public class Square {
 		return file;
 	}
 
-	public void setFile(char file) {
-		this.file = file;
-		this.x = fileToXMap.get(file);
-	}
-
 	public int getRank() {
 		return rank;
 	}
 
-	public void setRank(int rank) {
-		this.rank = rank;
-		this.y = rank;
-	}
-
 	public int getX() {
 		return x;
 	}
 
-	public void setX(int x) {
-		this.x = x;
-		this.file = xToFileMap.get(x);
-	}
-
 	public int getY() {
 		return y;
 	}
-
-	public void setY(int y) {
-		this.y = y;
-		this.rank = y;
-	}
 	
 }
@@ -0,0 +1,166 @@
+/**
+ * Static exchange evaluation, which works out what a capture wins or loses if both
+ * sides keep recapturing on the target square with their least valuable piece, and
+ * either side may stop when recapturing would only lose more.
+ * Attackers are found with Position.getAttackers() against an occupancy that loses
+ * each piece as it captures, so a rook or bishop lined up behind another piece joins in
+ * once the piece in front has gone.
+ */
+public final class StaticExchange {
+
+	/**
+	 * The value of each piece type in centipawns, indexed by piece type. The king is
+	 * worth more than everything else put together, so it only ever captures last.
+	 */
+	private static final int[] VALUES = new int[Piece.BLACK_KING + 1];
+
+	/**
+	 * The white piece types from least to most valuable, the order attackers are used in.
+	 */
+	private static final int[] ORDER = {Piece.WHITE_PAWN, Piece.WHITE_KNIGHT, Piece.WHITE_BISHOP,
+			Piece.WHITE_ROOK, Piece.WHITE_QUEEN, Piece.WHITE_KING};
+
+	static {
+		VALUES[Piece.WHITE_PAWN] = VALUES[Piece.BLACK_PAWN] = Searcher.PAWN_VALUE;
+		VALUES[Piece.WHITE_KNIGHT] = VALUES[Piece.BLACK_KNIGHT] = Searcher.KNIGHT_VALUE;
+		VALUES[Piece.WHITE_BISHOP] = VALUES[Piece.BLACK_BISHOP] = Searcher.BISHOP_VALUE;
+		VALUES[Piece.WHITE_ROOK] = VALUES[Piece.BLACK_ROOK] = Searcher.ROOK_VALUE;
+		VALUES[Piece.WHITE_QUEEN] = VALUES[Piece.BLACK_QUEEN] = Searcher.QUEEN_VALUE;
+		VALUES[Piece.WHITE_KING] = VALUES[Piece.BLACK_KING] = 20000;
+	}
+
+	/**
+	 * The most captures an exchange is followed for, and the size of the scratch
+	 * array a caller passes in.
+	 */
+	final public static int MAX_EXCHANGE = 32;
+
+	private StaticExchange() {
+
+	}
+
+	/**
+	 * Works out the material a move wins or loses once every recapture that pays
+	 * has been made on its target square. The move is not made.
+	 *
+	 * @param pos The current position.
+	 * @param move The packed move, which should be a legal move for the side to move.
+	 * @return The material won by the side making the move, in centipawns.
+	 * Zero for castling and for quiet moves to squares that can't be taken on.
+	 */
+	public static int evaluate(Position pos, int move) {
+		return evaluate(pos, move, new int[MAX_EXCHANGE]);
+	}
+
+	/**
+	 * Works out the material a move wins or loses, as evaluate(Position, int) does,
+	 * using a scratch array that the caller keeps, so the search never allocates one.
+	 *
+	 * @param pos The current position.
+	 * @param move The packed move, which should be a legal move for the side to move.
+	 * @param gain A scratch array of MAX_EXCHANGE entries, whose contents are overwritten.
+	 * @return The material won by the side making the move, in centipawns.
+	 */
+	public static int evaluate(Position pos, int move, int[] gain) {
+		if(PackedMove.isCastle(move))
+			return 0;
+		int from = PackedMove.getFrom(move);
+		int to = PackedMove.getTo(move);
+		Piece mover = pos.getPieceAt(Bitboard.getX(from), Bitboard.getY(from));
+		int side = mover.getColor();
+		long occupied = pos.getOccupied() & ~(1L << from);
+		if(PackedMove.getKind(move) == PackedMove.EN_PASSANT) {
+			gain[0] = Searcher.PAWN_VALUE;
+			occupied &= ~(1L << ((side == Piece.WHITE) ? to - 8 : to + 8));
+		}
+		else
+			gain[0] = valueOf(pos.getPieceAt(Bitboard.getX(to), Bitboard.getY(to)));
+		int onSquare = valueOf(mover);
+		if(PackedMove.isPromotion(move)) {
+			int promoted = promotionValue(PackedMove.getPromotion(move));
+			gain[0] += promoted - Searcher.PAWN_VALUE;
+			onSquare = promoted;
+		}
+		int d = 0;
+		while(true) {
+			d++;
+			side = (side == Piece.WHITE) ? Piece.BLACK : Piece.WHITE;
+			// What this side has if it takes the piece on the square and nothing takes back
+			gain[d] = onSquare - gain[d - 1];
+			// Neither side can do better by going on, so the exchange is decided
+			if(Math.max(-gain[d - 1], gain[d]) < 0 || d == gain.length - 1)
+				break;
+			long attackers = pos.getAttackers(to, side, occupied) & occupied;
+			if(attackers == 0)
+				break;
+			int offset = (side == Piece.WHITE) ? 0 : 1;
+			int type = 0;
+			long attacker = 0;
+			for(int t : ORDER) {
+				attacker = attackers & pos.getBitboard(t + offset);
+				if(attacker != 0) {
+					type = t + offset;
+					break;
+				}
+			}
+			// The king can't take if the square is still defended afterwards
+			if(type == Piece.WHITE_KING + offset) {
+				int other = (side == Piece.WHITE) ? Piece.BLACK : Piece.WHITE;
+				if((pos.getAttackers(to, other, occupied & ~attacker) & occupied & ~attacker) != 0)
+					break;
+			}
+			occupied &= ~(attacker & -attacker);
+			onSquare = VALUES[type];
+		}
+		// The last entry assumed a capture that no piece could make
+		while(--d > 0) {
+			gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+		}
+		return gain[0];
+	}
+
+	/**
+	 * Checks whether a move loses material by static exchange.
+	 *
+	 * @param pos The current position.
+	 * @param move The packed move.
+	 * @return True if and only if the move gives up more than it wins.
+	 */
+	public static boolean isLosing(Position pos, int move) {
+		return evaluate(pos, move) < 0;
+	}
+
+	/**
+	 * Checks whether a move loses material by static exchange, using a scratch array
+	 * that the caller keeps.
+	 *
+	 * @param pos The current position.
+	 * @param move The packed move.
+	 * @param gain A scratch array of MAX_EXCHANGE entries, whose contents are overwritten.
+	 * @return True if and only if the move gives up more than it wins.
+	 */
+	public static boolean isLosing(Position pos, int move, int[] gain) {
+		return evaluate(pos, move, gain) < 0;
+	}
+
+	private static int valueOf(Piece p) {
+		int type = p.getPieceType();
+		if(type < Piece.WHITE_PAWN || type > Piece.BLACK_KING)
+			return 0;
+		return VALUES[type];
+	}
+
+	private static int promotionValue(int promotion) {
+		switch(promotion) {
+			case PackedMove.PROMOTE_KNIGHT:
+				return Searcher.KNIGHT_VALUE;
+			case PackedMove.PROMOTE_BISHOP:
+				return Searcher.BISHOP_VALUE;
+			case PackedMove.PROMOTE_ROOK:
+				return Searcher.ROOK_VALUE;
+			default:
+				return Searcher.QUEEN_VALUE;
+		}
+	}
+
+}
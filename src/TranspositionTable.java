@@ -0,0 +1,198 @@
+import java.util.Arrays;
+
+/**
+ * A fixed-size table of search results, indexed by Zobrist key, so that a position
+ * reached again through a different move order doesn't have to be searched again.
+ * The table is allocated once and kept between searches.
+ * Entries come in buckets of two. The first entry of a bucket keeps the deepest result,
+ * unless it is left over from an earlier search, and the second always takes the newest.
+ * Each entry is two longs, the key XORed with the data and the data itself, so several
+ * threads can share the table without locking. A thread that reads an entry while another
+ * is writing it finds that the key doesn't check out, and treats the entry as a miss.
+ * The data is packed as follows:
+ * 0-18: the best move, packed as in the PackedMove class.
+ * 19-34: the score, offset so that it is never negative.
+ * 35-42: the depth.
+ * 43-44: the bound, one of the bound constants.
+ * 45-52: the age, which is the search the entry was stored in.
+ */
+public class TranspositionTable {
+
+	/**
+	 * The score is a lower bound, since the search failed high.
+	 */
+	final public static int LOWER_BOUND = 1;
+	/**
+	 * The score is an upper bound, since no move raised alpha.
+	 */
+	final public static int UPPER_BOUND = 2;
+	final public static int EXACT = 3;
+
+	private static final int MOVE_MASK = (1 << 19) - 1;
+	private static final int SCORE_SHIFT = 19;
+	private static final int SCORE_OFFSET = 1 << 15;
+	private static final int DEPTH_SHIFT = 35;
+	private static final int BOUND_SHIFT = 43;
+	private static final int AGE_SHIFT = 45;
+
+	/**
+	 * The entries, where bucket i takes up the four longs starting at 4i.
+	 */
+	private long[] entries;
+	private int bucketMask;
+	private int age = 0;
+
+	/**
+	 * Makes a table that takes up about the given amount of memory.
+	 *
+	 * @param megabytes The size of the table in megabytes.
+	 */
+	public TranspositionTable(int megabytes) {
+		resize(megabytes);
+	}
+
+	/**
+	 * Throws away every entry and reallocates the table at a new size.
+	 * The number of buckets is rounded down to a power of two.
+	 *
+	 * @param megabytes The size of the table in megabytes.
+	 */
+	public void resize(int megabytes) {
+		long wanted = Math.max(1, (long) megabytes * 1024 * 1024 / 32);
+		int buckets = Integer.highestOneBit((int) Math.min(wanted, 1 << 26));
+		entries = new long[buckets * 4];
+		bucketMask = buckets - 1;
+		age = 0;
+	}
+
+	/**
+	 * Empties the table, such as at the start of a new game.
+	 */
+	public void clear() {
+		Arrays.fill(entries, 0);
+		age = 0;
+	}
+
+	/**
+	 * Marks the start of a new search, so that entries from earlier searches
+	 * can be told apart and replaced first.
+	 */
+	public void newSearch() {
+		age = (age + 1) & 0xFF;
+	}
+
+	/**
+	 * Looks up a position.
+	 *
+	 * @param key The Zobrist key of the position.
+	 * @return The packed data of the entry, or 0 if the position isn't in the table.
+	 */
+	public long probe(long key) {
+		int i = ((int) key & bucketMask) * 4;
+		for(int j = i; j < i + 4; j += 2) {
+			long data = entries[j + 1];
+			if((entries[j] ^ data) == key && data != 0)
+				return data;
+		}
+		return 0;
+	}
+
+	/**
+	 * Stores the result of searching a position.
+	 *
+	 * @param key The Zobrist key of the position.
+	 * @param depth The depth that was searched.
+	 * @param score The score found, already adjusted with scoreToTable().
+	 * @param bound Whether the score is exact or a bound.
+	 * @param move The best move found, or PackedMove.NONE.
+	 */
+	public void store(long key, int depth, int score, int bound, int move) {
+		int i = ((int) key & bucketMask) * 4;
+		long old = entries[i + 1];
+		// Keep the move already stored if there is no new one
+		if(move == PackedMove.NONE && (entries[i] ^ old) == key)
+			move = getMove(old);
+		long data = (move & MOVE_MASK)
+				| ((long) (score + SCORE_OFFSET) << SCORE_SHIFT)
+				| ((long) Math.max(0, Math.min(depth, 0xFF)) << DEPTH_SHIFT)
+				| ((long) bound << BOUND_SHIFT)
+				| ((long) age << AGE_SHIFT);
+		// A deeper result from this search keeps the first entry, and the new one goes in the second
+		if(old != 0 && getAge(old) == age && depth < getDepth(old) && (entries[i] ^ old) != key)
+			i += 2;
+		entries[i] = key ^ data;
+		entries[i + 1] = data;
+	}
+
+	/**
+	 * Returns how full the table is, counted over the first thousand buckets.
+	 * Only entries from the current search count.
+	 *
+	 * @return The number of entries out of every thousand that are in use.
+	 */
+	public int hashfull() {
+		int buckets = Math.min(1000, bucketMask + 1);
+		int used = 0;
+		for(int b = 0; b < buckets; b++) {
+			for(int j = b * 4; j < b * 4 + 4; j += 2) {
+				long data = entries[j + 1];
+				if(data != 0 && getAge(data) == age)
+					used++;
+			}
+		}
+		return used * 1000 / (buckets * 2);
+	}
+
+	public static int getMove(long data) {
+		return (int) (data & MOVE_MASK);
+	}
+
+	public static int getScore(long data) {
+		return (int) ((data >>> SCORE_SHIFT) & 0xFFFF) - SCORE_OFFSET;
+	}
+
+	public static int getDepth(long data) {
+		return (int) ((data >>> DEPTH_SHIFT) & 0xFF);
+	}
+
+	public static int getBound(long data) {
+		return (int) ((data >>> BOUND_SHIFT) & 0x3);
+	}
+
+	private static int getAge(long data) {
+		return (int) ((data >>> AGE_SHIFT) & 0xFF);
+	}
+
+	/**
+	 * Converts a score into the form it is stored in. Mate scores are counted from the
+	 * root, but a stored entry may be reached at any ply, so mates are stored as
+	 * counted from the position itself.
+	 *
+	 * @param score The score found by the search.
+	 * @param ply The distance of the position from the root.
+	 * @return The score to store.
+	 */
+	public static int scoreToTable(int score, int ply) {
+		if(score >= Searcher.MATE - Searcher.MAX_PLY)
+			return score + ply;
+		if(score <= -Searcher.MATE + Searcher.MAX_PLY)
+			return score - ply;
+		return score;
+	}
+
+	/**
+	 * Converts a stored score back into a score counted from the root.
+	 *
+	 * @param score The stored score.
+	 * @param ply The distance of the position from the root.
+	 * @return The score for the search.
+	 */
+	public static int scoreFromTable(int score, int ply) {
+		if(score >= Searcher.MATE - Searcher.MAX_PLY)
+			return score - ply;
+		if(score <= -Searcher.MATE + Searcher.MAX_PLY)
+			return score + ply;
+		return score;
+	}
+
+}
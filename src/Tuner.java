@@ -0,0 +1,362 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Tunes the weights of the Evaluation class on a file of positions with known game
+ * results, by the Texel method: the evaluation of each position is turned into an
+ * expected result by a sigmoid, and the weights are moved to make the mean squared
+ * difference from the real results as small as possible.
+ * The evaluation is a tapered sum of term counts times weights, so the gradient of the
+ * error is worked out exactly from Evaluation.trace(), and the weights follow it by Adam.
+ * The file is read again on every pass rather than kept in memory, so that any number
+ * of positions can be tuned on, and each pass is spread over every core by a parallel
+ * stream. Positions should be quiet, since they are scored without a search.
+ * Each line of the file is a FEN or EPD position with its result, as white's score:
+ * either in brackets, such as [1.0], [0.5] or [0.0], or as a game result, such as
+ * "1-0", "1/2-1/2" or "0-1". Lines that don't read as a position and a result are skipped.
+ */
+public class Tuner {
+
+	/**
+	 * How often, in passes, the weights found so far are written out.
+	 */
+	private static final int SAVE_INTERVAL = 10;
+
+	private static final double BETA1 = 0.9;
+	private static final double BETA2 = 0.999;
+	private static final double EPSILON = 1e-8;
+
+	/**
+	 * The range searched for the scaling constant of the sigmoid, per centipawn.
+	 */
+	private static final double MIN_SCALE = 0.001;
+	private static final double MAX_SCALE = 0.02;
+	private static final int SCALE_STEPS = 20;
+
+	private final Path data;
+	private final double[] mg = new double[Evaluation.TERMS];
+	private final double[] eg = new double[Evaluation.TERMS];
+	private double scale;
+
+	/**
+	 * Runs the tuner.
+	 * Arguments: the data file, the file to write the weights to, and optionally the
+	 * number of passes (100 by default) and the learning rate in centipawns (1 by default).
+	 *
+	 * @param args The arguments.
+	 * @throws IOException If the data can't be read or the weights can't be written.
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			System.out.println("Usage: java Tuner <data file> <weights file> [passes] [learning rate]");
+			return;
+		}
+		int passes = (args.length > 2) ? Integer.parseInt(args[2]) : 100;
+		double rate = (args.length > 3) ? Double.parseDouble(args[3]) : 1.0;
+		Tuner t = new Tuner(Paths.get(args[0]));
+		long start = System.currentTimeMillis();
+		double error = t.fitScale();
+		System.out.println("Scale " + t.scale + ", error " + error);
+		t.tune(passes, rate, args[1]);
+		System.out.println("Done in " + (System.currentTimeMillis() - start) / 1000 + " s");
+	}
+
+	/**
+	 * Makes a tuner that starts from the weights in use.
+	 *
+	 * @param data The file of positions and results.
+	 */
+	public Tuner(Path data) {
+		this.data = data;
+		int[] mgWeights = Evaluation.getMiddlegameWeights();
+		int[] egWeights = Evaluation.getEndgameWeights();
+		for(int term = 0; term < Evaluation.TERMS; term++) {
+			mg[term] = mgWeights[term];
+			eg[term] = egWeights[term];
+		}
+	}
+
+	/**
+	 * Finds the scaling constant of the sigmoid that fits the current weights best,
+	 * by a golden section search, so that tuning changes the weights rather than
+	 * their overall size. Each step keeps the error of the probe that is still inside
+	 * the range, so the search reads the data SCALE_STEPS + 1 times.
+	 *
+	 * @return The error at the scaling constant found.
+	 * @throws IOException If the data can't be read.
+	 */
+	public double fitScale() throws IOException {
+		double ratio = (Math.sqrt(5) - 1) / 2;
+		double low = MIN_SCALE, high = MAX_SCALE;
+		double a = high - ratio * (high - low), b = low + ratio * (high - low);
+		double errorA = errorAt(a), errorB = errorAt(b);
+		for(int i = 1; i < SCALE_STEPS; i++) {
+			if(errorA < errorB) {
+				high = b;
+				b = a;
+				errorB = errorA;
+				a = high - ratio * (high - low);
+				errorA = errorAt(a);
+			}
+			else {
+				low = a;
+				a = b;
+				errorA = errorB;
+				b = low + ratio * (high - low);
+				errorB = errorAt(b);
+			}
+		}
+		scale = (errorA < errorB) ? a : b;
+		return Math.min(errorA, errorB);
+	}
+
+	private double errorAt(double s) throws IOException {
+		scale = s;
+		return error();
+	}
+
+	/**
+	 * Works out the mean squared error of the current weights over the data.
+	 *
+	 * @return The error.
+	 * @throws IOException If the data can't be read.
+	 */
+	public double error() throws IOException {
+		return pass().getError();
+	}
+
+	/**
+	 * Tunes the weights by Adam, writing them out every few passes and at the end.
+	 *
+	 * @param passes The number of passes over the data.
+	 * @param rate The learning rate, which is about how far a weight moves each pass.
+	 * @param path The file to write the weights to.
+	 * @throws IOException If the data can't be read or the weights can't be written.
+	 */
+	public void tune(int passes, double rate, String path) throws IOException {
+		double[] mgMoment = new double[Evaluation.TERMS], egMoment = new double[Evaluation.TERMS];
+		double[] mgVelocity = new double[Evaluation.TERMS], egVelocity = new double[Evaluation.TERMS];
+		for(int p = 1; p <= passes; p++) {
+			long start = System.currentTimeMillis();
+			Gradient g = pass();
+			double correction1 = 1 - Math.pow(BETA1, p);
+			double correction2 = 1 - Math.pow(BETA2, p);
+			for(int term = 0; term < Evaluation.TERMS; term++) {
+				double mgStep = g.getMiddlegame(term), egStep = g.getEndgame(term);
+				mgMoment[term] = BETA1 * mgMoment[term] + (1 - BETA1) * mgStep;
+				egMoment[term] = BETA1 * egMoment[term] + (1 - BETA1) * egStep;
+				mgVelocity[term] = BETA2 * mgVelocity[term] + (1 - BETA2) * mgStep * mgStep;
+				egVelocity[term] = BETA2 * egVelocity[term] + (1 - BETA2) * egStep * egStep;
+				mg[term] -= rate * (mgMoment[term] / correction1)
+						/ (Math.sqrt(mgVelocity[term] / correction2) + EPSILON);
+				eg[term] -= rate * (egMoment[term] / correction1)
+						/ (Math.sqrt(egVelocity[term] / correction2) + EPSILON);
+			}
+			System.out.println("Pass " + p + ": error " + g.getError() + " over " + g.getCount()
+					+ " positions, " + (System.currentTimeMillis() - start) + " ms");
+			if(p % SAVE_INTERVAL == 0 || p == passes)
+				save(path);
+		}
+	}
+
+	/**
+	 * Writes the weights found so far, rounded to whole centipawns.
+	 *
+	 * @param path The file to write the weights to.
+	 * @throws IOException If the file can't be written.
+	 */
+	public void save(String path) throws IOException {
+		int[] mgWeights = new int[Evaluation.TERMS], egWeights = new int[Evaluation.TERMS];
+		for(int term = 0; term < Evaluation.TERMS; term++) {
+			mgWeights[term] = (int) Math.round(mg[term]);
+			egWeights[term] = (int) Math.round(eg[term]);
+		}
+		Evaluation.saveWeights(path, mgWeights, egWeights);
+	}
+
+	/**
+	 * Reads the data once, working out the error and its gradient on every core.
+	 */
+	private Gradient pass() throws IOException {
+		try(Stream<String> lines = Files.lines(data)) {
+			return lines.parallel().collect(Gradient::new, this::add, Gradient::merge).finish();
+		}
+		catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Adds one line of the data to a gradient.
+	 */
+	private void add(Gradient g, String line) {
+		double result = parseResult(line);
+		if(Double.isNaN(result))
+			return;
+		long[] bitboards = g.bitboards;
+		if(!parsePlacement(line, bitboards))
+			return;
+		int[] counts = g.counts;
+		double phase = Math.min(Evaluation.trace(bitboards, counts), Evaluation.MAX_PHASE)
+				/ (double) Evaluation.MAX_PHASE;
+		double mgScore = 0, egScore = 0;
+		for(int term = 0; term < Evaluation.TERMS; term++) {
+			if(counts[term] != 0) {
+				mgScore += counts[term] * mg[term];
+				egScore += counts[term] * eg[term];
+			}
+		}
+		double score = mgScore * phase + egScore * (1 - phase);
+		double expected = 1 / (1 + Math.exp(-scale * score));
+		double difference = expected - result;
+		g.error += difference * difference;
+		g.count++;
+		// The derivative of the squared error with respect to the score
+		double slope = 2 * difference * expected * (1 - expected) * scale;
+		for(int term = 0; term < Evaluation.TERMS; term++) {
+			if(counts[term] != 0) {
+				g.mg[term] += slope * counts[term] * phase;
+				g.eg[term] += slope * counts[term] * (1 - phase);
+			}
+		}
+	}
+
+	/**
+	 * Reads the piece placement at the start of a line of data into bitboards.
+	 * The rest of the position doesn't matter to the evaluation, and setting up
+	 * a whole Position would take far longer than the evaluation itself.
+	 *
+	 * @param line The line.
+	 * @param bitboards The array to fill, indexed by piece type.
+	 * @return True if and only if the placement could be read.
+	 */
+	private static boolean parsePlacement(String line, long[] bitboards) {
+		Arrays.fill(bitboards, 0);
+		int rank = 7, file = 0;
+		for(int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if(c == ' ')
+				return rank == 0 && file == 8;
+			if(c == '/') {
+				if(file != 8 || rank == 0)
+					return false;
+				rank--;
+				file = 0;
+			}
+			else if(c >= '1' && c <= '8')
+				file += c - '0';
+			else {
+				int type = pieceType(c);
+				if(type == 0 || file > 7)
+					return false;
+				bitboards[type] |= 1L << (rank * 8 + file);
+				file++;
+			}
+			if(file > 8)
+				return false;
+		}
+		return false;
+	}
+
+	private static int pieceType(char c) {
+		switch(c) {
+			case 'P': return Piece.WHITE_PAWN;
+			case 'N': return Piece.WHITE_KNIGHT;
+			case 'B': return Piece.WHITE_BISHOP;
+			case 'R': return Piece.WHITE_ROOK;
+			case 'Q': return Piece.WHITE_QUEEN;
+			case 'K': return Piece.WHITE_KING;
+			case 'p': return Piece.BLACK_PAWN;
+			case 'n': return Piece.BLACK_KNIGHT;
+			case 'b': return Piece.BLACK_BISHOP;
+			case 'r': return Piece.BLACK_ROOK;
+			case 'q': return Piece.BLACK_QUEEN;
+			case 'k': return Piece.BLACK_KING;
+			default: return 0;
+		}
+	}
+
+	/**
+	 * Picks out the result from a line of data.
+	 *
+	 * @param line The line.
+	 * @return White's score, or NaN if the line has no result.
+	 */
+	private static double parseResult(String line) {
+		if(line.contains("1/2-1/2"))
+			return 0.5;
+		if(line.contains("1-0"))
+			return 1;
+		if(line.contains("0-1"))
+			return 0;
+		int open = line.lastIndexOf('['), close = line.lastIndexOf(']');
+		if(open < 0 || close < open)
+			return Double.NaN;
+		try {
+			return Double.parseDouble(line.substring(open + 1, close).trim());
+		}
+		catch(NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * The error and gradient summed over part of the data, with scratch arrays for
+	 * the bitboards and term counts, so that each thread of a pass has its own.
+	 */
+	private static class Gradient {
+
+		private double error;
+		private long count;
+		private double[] mg = new double[Evaluation.TERMS];
+		private double[] eg = new double[Evaluation.TERMS];
+		private int[] counts = new int[Evaluation.TERMS];
+		private long[] bitboards = new long[Piece.BLACK_KING + 1];
+
+		private void merge(Gradient other) {
+			error += other.error;
+			count += other.count;
+			for(int term = 0; term < Evaluation.TERMS; term++) {
+				mg[term] += other.mg[term];
+				eg[term] += other.eg[term];
+			}
+		}
+
+		/**
+		 * Turns the sums into means.
+		 */
+		private Gradient finish() {
+			if(count == 0)
+				return this;
+			error /= count;
+			for(int term = 0; term < Evaluation.TERMS; term++) {
+				mg[term] /= count;
+				eg[term] /= count;
+			}
+			return this;
+		}
+
+		private double getError() {
+			return error;
+		}
+
+		private long getCount() {
+			return count;
+		}
+
+		private double getMiddlegame(int term) {
+			return mg[term];
+		}
+
+		private double getEndgame(int term) {
+			return eg[term];
+		}
+
+	}
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Random keys for Zobrist hashing, which identifies a position by a single long.
+ * The key of a position is the XOR of one key for each piece on each square,
+ * one for the castling rights, one for the file of the en passant square if there is one,
+ * and one more if black is to move. Since XOR undoes itself, the key can be kept up to
+ * date as pieces move by XORing out what changed and XORing in what replaced it.
+ * The keys come from a generator with a fixed seed, so every run hashes alike.
+ */
+public final class Zobrist {
+
+	/**
+	 * One key for each type of piece on each square, indexed by piece type and bit index.
+	 */
+	private static final long[][] PIECE_KEYS = new long[Piece.BLACK_KING + 1][64];
+	/**
+	 * One key for each combination of the castling right flags in the Position class.
+	 */
+	private static final long[] CASTLING_KEYS = new long[16];
+	/**
+	 * One key for each file an en passant square can be on, indexed by x - 1.
+	 */
+	private static final long[] EN_PASSANT_KEYS = new long[8];
+	private static final long BLACK_TO_MOVE_KEY;
+
+	private static long seed = 0x9E3779B97F4A7C15L;
+
+	static {
+		for(int type = Piece.WHITE_PAWN; type <= Piece.BLACK_KING; type++) {
+			for(int sq = 0; sq < 64; sq++) {
+				PIECE_KEYS[type][sq] = nextRandom();
+			}
+		}
+		// No castling rights gets a key of zero, so a bare board hashes to zero
+		for(int i = 1; i < CASTLING_KEYS.length; i++) {
+			CASTLING_KEYS[i] = nextRandom();
+		}
+		for(int i = 0; i < EN_PASSANT_KEYS.length; i++) {
+			EN_PASSANT_KEYS[i] = nextRandom();
+		}
+		BLACK_TO_MOVE_KEY = nextRandom();
+	}
+
+	private Zobrist() {
+
+	}
+
+	/**
+	 * Returns the key of a piece standing on a square.
+	 *
+	 * @param pieceType The type of piece, as defined in the Piece class.
+	 * @param index The bit index of the square.
+	 * @return The key, or 0 for blanks and labels.
+	 */
+	public static long pieceKey(int pieceType, int index) {
+		if(pieceType < Piece.WHITE_PAWN || pieceType > Piece.BLACK_KING)
+			return 0;
+		return PIECE_KEYS[pieceType][index];
+	}
+
+	/**
+	 * Returns the key of a set of castling rights.
+	 *
+	 * @param castlingRights A combination of the castling right flags in the Position class.
+	 * @return The key.
+	 */
+	public static long castlingKey(int castlingRights) {
+		return CASTLING_KEYS[castlingRights];
+	}
+
+	/**
+	 * Returns the key of an en passant square.
+	 *
+	 * @param sq The en passant square, or null if there is none.
+	 * @return The key of its file, or 0 if there is no en passant square.
+	 */
+	public static long enPassantKey(Square sq) {
+		if(sq == null)
+			return 0;
+		return EN_PASSANT_KEYS[sq.getX() - 1];
+	}
+
+	/**
+	 * Returns the key that is XORed in whenever black is to move.
+	 *
+	 * @return The key.
+	 */
+	public static long blackToMoveKey() {
+		return BLACK_TO_MOVE_KEY;
+	}
+
+	/**
+	 * Returns the next number of a xorshift generator.
+	 *
+	 * @return A pseudo-random long.
+	 */
+	private static long nextRandom() {
+		seed ^= seed >>> 12;
+		seed ^= seed << 25;
+		seed ^= seed >>> 27;
+		return seed * 2685821657736338717L;
+	}
+
+}